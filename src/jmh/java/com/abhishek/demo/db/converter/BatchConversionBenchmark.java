@@ -0,0 +1,75 @@
+package com.abhishek.demo.db.converter;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch conversion through {@link EncryptedAttributeConverter#convertAllToDatabaseColumn(List)} and
+ * {@link EncryptedAttributeConverter#convertAllToEntityAttribute(List)}, against converting the same batch one value
+ * at a time on the calling thread, as the JPA callback does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchConversionBenchmark {
+
+    @Param({"AES_V1", "AES_GCM_V2"})
+    private CipherFormat format;
+
+    @Param({"10000"})
+    private int batchSize;
+
+    private StringEncryptedAttributeConverter converter;
+    private List<String> plainTexts;
+    private List<String> dbValues;
+
+    @Setup
+    public void setUp() {
+        converter = new StringEncryptedAttributeConverter() {
+            @Override
+            protected CipherFormat getEncryptionFormat(String s) {
+                return format;
+            }
+        };
+        plainTexts = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            plainTexts.add("account-" + i);
+        }
+        dbValues = converter.convertAllToDatabaseColumn(plainTexts);
+    }
+
+    @Benchmark
+    public List<String> encryptOneByOne() {
+        List<String> result = new ArrayList<>(batchSize);
+        for (String plainText : plainTexts) {
+            result.add(converter.convertToDatabaseColumn(plainText));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> encryptBatch() {
+        return converter.convertAllToDatabaseColumn(plainTexts);
+    }
+
+    @Benchmark
+    public List<String> decryptOneByOne() {
+        List<String> result = new ArrayList<>(batchSize);
+        for (String dbValue : dbValues) {
+            result.add(converter.convertToEntityAttribute(dbValue));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> decryptBatch() {
+        return converter.convertAllToEntityAttribute(dbValues);
+    }
+}
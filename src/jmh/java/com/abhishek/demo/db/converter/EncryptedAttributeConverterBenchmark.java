@@ -0,0 +1,55 @@
+package com.abhishek.demo.db.converter;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip costs of {@link StringEncryptedAttributeConverter}, for each {@link CipherFormat} and typical column
+ * payload sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncryptedAttributeConverterBenchmark {
+
+    @Param({"BASE_64", "AES_V1", "AES_GCM_V2"})
+    private CipherFormat format;
+
+    @Param({"16", "64", "256"})
+    private int payloadSize;
+
+    private StringEncryptedAttributeConverter converter;
+    private String plainText;
+    private String dbValue;
+
+    @Setup
+    public void setUp() {
+        converter = new StringEncryptedAttributeConverter() {
+            @Override
+            protected CipherFormat getEncryptionFormat(String s) {
+                return format;
+            }
+        };
+        StringBuilder sb = new StringBuilder(payloadSize);
+        for (int i = 0; i < payloadSize; i++) {
+            sb.append((char) ('0' + i % 10));
+        }
+        plainText = sb.toString();
+        dbValue = converter.convertToDatabaseColumn(plainText);
+    }
+
+    @Benchmark
+    public String convertToDatabaseColumn() {
+        return converter.convertToDatabaseColumn(plainText);
+    }
+
+    @Benchmark
+    public String convertToEntityAttribute() {
+        return converter.convertToEntityAttribute(dbValue);
+    }
+}
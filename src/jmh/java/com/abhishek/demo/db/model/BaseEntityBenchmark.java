@@ -0,0 +1,76 @@
+package com.abhishek.demo.db.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link BaseEntity#hashCode()} and {@link BaseEntity#equals(Object)} when entities are kept in large
+ * {@link HashSet}s, as in {@link Author#books}, for persisted entities and for new ones, which have no id yet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BaseEntityBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Book[] persistedBooks;
+    private Set<Book> persistedBookSet;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        Field id = BaseEntity.class.getDeclaredField("id");
+        Field version = BaseEntity.class.getDeclaredField("version");
+        id.setAccessible(true);
+        version.setAccessible(true);
+
+        persistedBooks = new Book[size];
+        for (int i = 0; i < size; i++) {
+            Book book = Book.builder().name("Book " + i).ISBN("ISBN" + i).build();
+            id.set(book, (long) i + 1);
+            version.set(book, 0);
+            persistedBooks[i] = book;
+        }
+        persistedBookSet = new HashSet<>();
+        for (Book book : persistedBooks) {
+            persistedBookSet.add(book);
+        }
+    }
+
+    @Benchmark
+    public Set<Book> addPersisted() {
+        Set<Book> books = new HashSet<>();
+        for (Book book : persistedBooks) {
+            books.add(book);
+        }
+        return books;
+    }
+
+    /**
+     * Adds new books to one author, as a bulk creation of the books of an author would.
+     */
+    @Benchmark
+    public Author addNewToAuthor() {
+        Author author = Author.builder().firstName("Prolific").books(new HashSet<>()).build();
+        for (int i = 0; i < size; i++) {
+            author.getBooks().add(Book.builder().name("Book " + i).author(author).build());
+        }
+        return author;
+    }
+
+    @Benchmark
+    public void containsPersisted(Blackhole blackhole) {
+        for (Book book : persistedBooks) {
+            blackhole.consume(persistedBookSet.contains(book));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.abhishek.demo.db.projections;
+
+import com.abhishek.demo.DemoApplication;
+import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.repository.AuthorRepository;
+import com.abhishek.demo.db.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Materialization cost of interface (JDK proxy) projections against class based DTO projections, read from the
+ * application's in-memory H2 database, and their cost when serialized to JSON as the endpoints do. Run with
+ * {@code -Djmh.args="ProjectionBenchmark -prof gc"} to compare allocations per call, i.e. per batch of rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    private static final String FIRST_NAME = "Benchmark";
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private AuthorRepository authorRepository;
+    private TransactionTemplate transactionTemplate;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        // Arguments rather than default properties, which application.properties would override
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.devtools.restart.enabled=false",
+                        "--logging.level.com.abhishek=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.hibernate.stat=WARN");
+        bookRepository = context.getBean(BookRepository.class);
+        authorRepository = context.getBean(AuthorRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        List<Book> books = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            books.add(Book.builder()
+                    .name("Book " + i)
+                    .ISBN("BENCH" + i)
+                    .author(Author.builder()
+                            .firstName(FIRST_NAME)
+                            .lastName("Author " + i)
+                            .accountNumber("ACC" + i)
+                            .build())
+                    .build());
+        }
+        bookRepository.saveAll(books);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void bookInterfaceProjection(Blackhole blackhole) {
+        transactionTemplate.execute(status -> {
+            for (BookView book : bookRepository.findByIdGreaterThan(0L, BookView.class)) {
+                blackhole.consume(book.getName());
+                blackhole.consume(book.getISBN());
+                AuthorView author = book.getAuthor();
+                if (author != null) {
+                    blackhole.consume(author.getFirstName());
+                    blackhole.consume(author.getAccountNumber());
+                }
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void bookDtoProjection(Blackhole blackhole) {
+        for (BookDto book : bookRepository.findAllByIdGreaterThan(0L)) {
+            blackhole.consume(book.getName());
+            blackhole.consume(book.getISBN());
+            AuthorDto author = book.getAuthor();
+            if (author != null) {
+                blackhole.consume(author.getFirstName());
+                blackhole.consume(author.getAccountNumber());
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] bookInterfaceProjectionToJson() {
+        return transactionTemplate.execute(status -> toJson(bookRepository.findByIdGreaterThan(0L, BookView.class)));
+    }
+
+    @Benchmark
+    public byte[] bookDtoProjectionToJson() {
+        return toJson(bookRepository.findAllByIdGreaterThan(0L));
+    }
+
+    @Benchmark
+    public void authorInterfaceProjection(Blackhole blackhole) {
+        for (AuthorView author : authorRepository.findAllByFirstName(FIRST_NAME, AuthorView.class)) {
+            blackhole.consume(author.getFirstName());
+            blackhole.consume(author.getLastName());
+            blackhole.consume(author.getAccountNumber());
+        }
+    }
+
+    @Benchmark
+    public void authorDtoProjection(Blackhole blackhole) {
+        for (AuthorDto author : authorRepository.findAuthorsByFirstName(FIRST_NAME)) {
+            blackhole.consume(author.getFirstName());
+            blackhole.consume(author.getLastName());
+            blackhole.consume(author.getAccountNumber());
+        }
+    }
+
+    @Benchmark
+    public void authorClassProjection(Blackhole blackhole) {
+        for (AuthorClassProjectionView author : authorRepository.findAllByFirstName(FIRST_NAME, AuthorClassProjectionView.class)) {
+            blackhole.consume(author.getFullName());
+            blackhole.consume(author.getAccountNumber());
+        }
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
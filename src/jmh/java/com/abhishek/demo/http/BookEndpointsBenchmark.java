@@ -0,0 +1,83 @@
+package com.abhishek.demo.http;
+
+import com.abhishek.demo.DemoApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of a page of books read through the servlet path ({@code /books}, JPA on the
+ * request thread) against the reactive path ({@code /reactive/books}, R2DBC), under many concurrent clients.
+ * Run with {@code -Djmh.args="BookEndpointsBenchmark -t 256"} to raise the number of clients further.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookEndpointsBenchmark {
+
+    @Param({"50"})
+    private int limit;
+
+    private ConfigurableApplicationContext context;
+    private URL servletUrl;
+    private URL reactiveUrl;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Arguments rather than default properties, which application.properties would override
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--management.server.port=-1",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.com.abhishek=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.hibernate.stat=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        servletUrl = new URL("http://localhost:" + port + "/books?limit=" + limit);
+        reactiveUrl = new URL("http://localhost:" + port + "/reactive/books?limit=" + limit);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] servlet() throws IOException {
+        return get(servletUrl);
+    }
+
+    @Benchmark
+    public byte[] reactive() throws IOException {
+        return get(reactiveUrl);
+    }
+
+    private static byte[] get(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            throw new IOException("GET " + url + " : " + connection.getResponseCode());
+        }
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
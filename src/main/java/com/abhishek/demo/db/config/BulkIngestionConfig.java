@@ -0,0 +1,25 @@
+package com.abhishek.demo.db.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.bulk-ingestion")
+@PropertySource("classpath:ingestion.properties")
+public class BulkIngestionConfig {
+
+    /**
+     * Number of uploaded rows written in one transaction, after which the persistence context is flushed and cleared.
+     */
+    private Integer batchSize;
+
+    /**
+     * Number of authors remembered by name, so that later rows of the same author refer to the row already written.
+     */
+    private Integer authorCacheSize;
+}
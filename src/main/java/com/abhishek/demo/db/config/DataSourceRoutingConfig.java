@@ -0,0 +1,126 @@
+package com.abhishek.demo.db.config;
+
+import com.abhishek.demo.db.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routing of read-only transactions to read replicas, see {@link ReplicaRoutingDataSource}. When disabled, the single
+ * {@code spring.datasource} pool of Spring Boot is used for everything.
+ */
+@Slf4j
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.routing")
+@PropertySource("classpath:routing.properties")
+public class DataSourceRoutingConfig {
+
+    private boolean enabled;
+
+    /**
+     * How often replicas are checked.
+     */
+    private Duration healthCheckInterval;
+
+    /**
+     * How long a read waits for a connection of a replica, before falling back to the primary.
+     */
+    private Duration connectionTimeout;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * The data source of JPA and JDBC. It wraps the {@link ReplicaRoutingDataSource} in a lazy proxy, which only picks
+     * the pool of a connection on its first statement, once the transaction is known to be read-only or not. The
+     * routing data source is not a bean of its own, so that it is not mistaken for another data source to initialize.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "db.routing", name = "enabled", havingValue = "true")
+    public DataSource dataSource(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        // as the pools are not beans, Spring Boot does not instrument them
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+
+        Map<String, DataSource> replicaPools = new LinkedHashMap<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(i);
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername())
+                    .password(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword())
+                    .build();
+            pool.setPoolName("replica-" + i);
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            // a replica down at startup is skipped rather than failing it
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            meterRegistry.ifAvailable(pool::setMetricRegistry);
+            replicaPools.put(pool.getPoolName(), pool);
+        }
+        log.info("Routing read-only transactions to replicas {}, checked every {}", replicaPools.keySet(),
+                healthCheckInterval);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicaPools, healthCheckInterval);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Reports each replica as up or down, as of its last check. Reads fall back to the primary, so down replicas do
+     * not make the application down.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "db.routing", name = "enabled", havingValue = "true")
+    public HealthIndicator replicasHealthIndicator() {
+        return () -> {
+            List<String> healthy = routingDataSource.getHealthyReplicas();
+            Health.Builder health = Health.up();
+            for (String replica : routingDataSource.getReplicaNames()) {
+                health.withDetail(replica, healthy.contains(replica) ? Status.UP : Status.DOWN);
+            }
+            return health.build();
+        };
+    }
+
+    @PreDestroy
+    public void closeRoutingDataSource() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+}
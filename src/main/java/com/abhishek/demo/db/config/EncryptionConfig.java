@@ -0,0 +1,109 @@
+package com.abhishek.demo.db.config;
+
+import com.abhishek.demo.db.converter.DecryptedValueCache.EvictionPolicy;
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter;
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import com.abhishek.demo.util.KeyStoreSecretLoader;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import javax.annotation.PostConstruct;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Settings of {@link EncryptedAttributeConverter}, which is instantiated by the JPA provider rather than by Spring,
+ * and so is configured through its static hooks once these properties are bound.
+ */
+@Slf4j
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.encryption")
+@PropertySource("classpath:encryption.properties")
+public class EncryptionConfig {
+
+    /**
+     * Format new values are encrypted with.
+     */
+    private CipherFormat defaultFormat;
+
+    private final Cache cache = new Cache();
+
+    private final KeyStore keyStore = new KeyStore();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        private boolean enabled;
+
+        /**
+         * Maximum number of decrypted values kept in memory.
+         */
+        private Integer maxSize;
+
+        /**
+         * Time after which a decrypted value is dropped, since it was cached.
+         */
+        private Duration expireAfter;
+
+        private EvictionPolicy evictionPolicy;
+    }
+
+    @Getter
+    @Setter
+    public static class KeyStore {
+
+        /**
+         * Whether keys are loaded from the key store file, rather than generated at startup.
+         */
+        private boolean enabled;
+
+        private String path;
+
+        private String password;
+
+        private String type;
+
+        /**
+         * How often the key store file is checked for changes.
+         */
+        private Duration refreshInterval;
+    }
+
+    /**
+     * Loads all encryption keys from the configured key store, and re-loads them whenever the file changes.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "db.encryption.key-store", name = "enabled", havingValue = "true")
+    public KeyStoreSecretLoader keyStoreSecretLoader() {
+        KeyStoreSecretLoader loader = new KeyStoreSecretLoader(Paths.get(keyStore.getPath()),
+                keyStore.getPassword().toCharArray(), keyStore.getType(), keyStore.getRefreshInterval(),
+                EncryptedAttributeConverter::keysRotated);
+        EncryptedAttributeConverter.setSecretLoader(loader);
+        log.info("Loading encryption keys from key store {}, checked for changes every {}",
+                keyStore.getPath(), keyStore.getRefreshInterval());
+        return loader;
+    }
+
+    @PostConstruct
+    public void configureConverter() {
+        if (defaultFormat != null) {
+            CipherFormat.setDefault(defaultFormat);
+            log.info("Encrypting new values with {}", defaultFormat);
+        }
+        if (cache.isEnabled()) {
+            EncryptedAttributeConverter.getDecryptedValueCache()
+                    .configure(cache.getMaxSize(), cache.getExpireAfter(), cache.getEvictionPolicy());
+            log.info("Decrypted value cache enabled, size {}, expiry {}, policy {}",
+                    cache.getMaxSize(), cache.getExpireAfter(), cache.getEvictionPolicy());
+        }
+    }
+}
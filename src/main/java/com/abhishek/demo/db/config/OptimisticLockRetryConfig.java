@@ -0,0 +1,32 @@
+package com.abhishek.demo.db.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.optimistic-lock-retry")
+@PropertySource("classpath:retry.properties")
+public class OptimisticLockRetryConfig {
+
+    /**
+     * Number of times a change is tried in all, the first one included.
+     */
+    private Integer maxAttempts;
+
+    /**
+     * Upper bound of the random wait before the first retry, doubled for every following retry.
+     */
+    private Duration initialBackoff;
+
+    /**
+     * Upper bound of the random wait before any retry.
+     */
+    private Duration maxBackoff;
+}
@@ -0,0 +1,47 @@
+package com.abhishek.demo.db.config;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.re-encryption")
+@PropertySource("classpath:encryption.properties")
+public class ReEncryptionConfig {
+
+    /**
+     * Starts the re-encryption job in background once the application is ready.
+     */
+    private boolean enabled;
+
+    private String table;
+
+    private String column;
+
+    private CipherFormat targetFormat;
+
+    /**
+     * Number of rows read, re-encrypted and written back by one worker in one transaction.
+     */
+    private Integer chunkSize;
+
+    /**
+     * Number of rows per JDBC batch update, within a chunk.
+     */
+    private Integer batchSize;
+
+    /**
+     * Number of chunks re-encrypted in parallel.
+     */
+    private Integer parallelism;
+
+    /**
+     * Upper bound of re-encrypted rows per second, to limit the load on a live DB. Unbounded when 0.
+     */
+    private Integer maxRowsPerSecond;
+}
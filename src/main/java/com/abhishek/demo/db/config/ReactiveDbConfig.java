@@ -0,0 +1,61 @@
+package com.abhishek.demo.db.config;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.Disposable;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * R2DBC access to the DB, for the non-blocking reads of
+ * {@link com.abhishek.demo.db.repository.ReactiveBookRepository}, next to JPA through which everything is written.
+ * <p>
+ * The connection factory is only exposed through the {@link DatabaseClient} bean, on which Spring Boot builds the
+ * R2DBC repositories, and is not a bean itself: Spring Boot would otherwise skip the JDBC {@code DataSource} of JPA,
+ * and add a reactive transaction manager that makes {@code @Transactional} ambiguous.
+ */
+@Slf4j
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.reactive")
+@PropertySource("classpath:reactive.properties")
+public class ReactiveDbConfig {
+
+    /**
+     * R2DBC URL, pooled through {@code r2dbc:pool:}.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private ConnectionFactory connectionFactory;
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        log.info("Reading books without blocking through {}", url);
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @PreDestroy
+    public void closeConnectionFactory() {
+        if (connectionFactory instanceof Disposable) {
+            ((Disposable) connectionFactory).dispose();
+        }
+    }
+}
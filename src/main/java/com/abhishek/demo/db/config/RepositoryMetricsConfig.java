@@ -0,0 +1,86 @@
+package com.abhishek.demo.db.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call of every Spring Data repository method, as the {@code db.repository.invocations} timer with a
+ * latency histogram, tagged by repository, method, outcome and exception. The timer wraps the whole repository call,
+ * transaction and exception translation included. Methods returning a stream are timed until the stream is returned,
+ * not while it is read.
+ */
+@Configuration
+public class RepositoryMetricsConfig {
+
+    static final String METRIC_NAME = "db.repository.invocations";
+
+    /**
+     * Static, as post processors are created before other beans. The registry is only looked up on the first call.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(0, new TimingInterceptor(meterRegistry,
+                                            repositoryInformation.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final String repository;
+        private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry, String repository) {
+            this.meterRegistry = meterRegistry;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            long startNanos = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                successTimers.computeIfAbsent(invocation.getMethod(), method -> timer(method, "SUCCESS", "none"))
+                        .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (Throwable e) {
+                timer(invocation.getMethod(), "ERROR", e.getClass().getSimpleName())
+                        .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+
+        private Timer timer(Method method, String outcome, String exception) {
+            return Timer.builder(METRIC_NAME)
+                    .description("Time spent in repository calls")
+                    .tags("repository", repository, "method", method.getName(), "outcome", outcome,
+                            "exception", exception)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry.getObject());
+        }
+    }
+}
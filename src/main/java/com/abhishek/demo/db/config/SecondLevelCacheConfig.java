@@ -0,0 +1,132 @@
+package com.abhishek.demo.db.config;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter;
+import com.abhishek.demo.db.model.Author;
+import com.github.benmanes.caffeine.jcache.configuration.TypesafeConfigurator;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Second-level cache of Hibernate, backed by Caffeine through JCache. Regions, their sizes and time to live are set in
+ * {@code application.conf}. Entities opt in with {@link javax.persistence.Cacheable} and
+ * {@link org.hibernate.annotations.Cache}, in {@code READ_WRITE} mode so that entries are locked while their rows are
+ * updated, and only replaced by entries of a newer {@link javax.persistence.Version}.
+ * <p>
+ * Hits, misses, puts and evictions of every region are published as the {@code cache.*} meters, tagged with
+ * {@code cache.manager=hibernate}.
+ * <p>
+ * Hibernate caches the converted state of an entity, so an entity with an encrypted attribute, like
+ * {@link Author#getAccountNumber()}, would sit in the cache with that attribute in plain text. Such entities are not
+ * cached unless {@link #cacheEncryptedEntities} is set, in which case they are evicted whenever the encryption keys
+ * are rotated, see {@link EncryptedAttributeConverter#keysRotated()}. Their collections of ids are cached either way.
+ *
+ * @implNote Each application context gets a cache manager of its own, rather than the provider's default one, so that
+ * contexts running side by side against different databases, as in tests, do not serve each other's rows.
+ */
+@Slf4j
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.second-level-cache")
+@PropertySource("classpath:second-level-cache.properties")
+public class SecondLevelCacheConfig {
+
+    static final String CACHE_MANAGER_TAG = "hibernate";
+
+    /**
+     * Entities with encrypted attributes, and the regions of application.conf they are cached in when enabled.
+     */
+    private static final Map<Class<?>, String> ENCRYPTED_ENTITY_REGIONS = Collections.singletonMap(Author.class, "author");
+
+    /**
+     * Whether entities with encrypted attributes are cached, holding their decrypted values in memory.
+     */
+    private boolean cacheEncryptedEntities;
+
+    @Autowired
+    private ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    private final Runnable encryptedEntityEviction = this::evictEncryptedEntities;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        CaffeineCachingProvider provider = (CaffeineCachingProvider) Caching.getCachingProvider(
+                CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("hibernate-l2:" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        // created up front, so that the meters below cover all regions
+        for (String region : TypesafeConfigurator.cacheNames(TypesafeConfigurator.configSource().get())) {
+            cacheManager.getCache(region);
+        }
+        log.info("Second-level cache regions : {}", cacheManager.getCacheNames());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            if (cacheEncryptedEntities) {
+                // same as @Cacheable with @Cache(usage = READ_WRITE, region = ...)
+                ENCRYPTED_ENTITY_REGIONS.forEach((entity, region) -> properties.put(
+                        AvailableSettings.CLASS_CACHE_PREFIX + "." + entity.getName(), "read-write," + region));
+            }
+        };
+    }
+
+    @PostConstruct
+    public void registerEncryptedEntityEviction() {
+        if (cacheEncryptedEntities) {
+            EncryptedAttributeConverter.addKeyRotationListener(encryptedEntityEviction);
+            log.warn("Caching entities with encrypted attributes {}, in plain text", ENCRYPTED_ENTITY_REGIONS.keySet());
+        }
+    }
+
+    @PreDestroy
+    public void unregisterEncryptedEntityEviction() {
+        EncryptedAttributeConverter.removeKeyRotationListener(encryptedEntityEviction);
+    }
+
+    private void evictEncryptedEntities() {
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        if (factory == null || !factory.isOpen()) return;
+        for (Class<?> entity : ENCRYPTED_ENTITY_REGIONS.keySet()) {
+            factory.getCache().evict(entity);
+        }
+        log.info("Evicted {} from second-level cache after key rotation", ENCRYPTED_ENTITY_REGIONS.keySet());
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        return registry -> {
+            for (String region : secondLevelCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, secondLevelCacheManager.getCache(region),
+                        Tags.of("cache.manager", CACHE_MANAGER_TAG));
+            }
+        };
+    }
+}
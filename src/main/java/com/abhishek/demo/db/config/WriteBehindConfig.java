@@ -0,0 +1,48 @@
+package com.abhishek.demo.db.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "db.write-behind")
+@PropertySource("classpath:write-behind.properties")
+public class WriteBehindConfig {
+
+    /**
+     * Queues books created through {@link com.abhishek.demo.service.BookService#createNewBookAsync} to be written in
+     * batches, rather than writing each in a transaction of its own.
+     */
+    private boolean enabled;
+
+    /**
+     * Number of books waiting to be written, beyond which creates wait for room in the queue.
+     */
+    private Integer capacity;
+
+    /**
+     * Maximum number of books written in one transaction.
+     */
+    private Integer batchSize;
+
+    /**
+     * How long the first book of a batch waits for more books, before the batch is written anyway.
+     */
+    private Duration maxDelay;
+
+    /**
+     * How long a create waits for room in a full queue, before being rejected.
+     */
+    private Duration offerTimeout;
+
+    /**
+     * How long shutdown waits for the queued books to be written.
+     */
+    private Duration shutdownTimeout;
+}
@@ -0,0 +1,32 @@
+package com.abhishek.demo.db.converter;
+
+import javax.persistence.AttributeConverter;
+
+/**
+ * Binary column mode of {@link EncryptedAttributeConverter}, for attributes stored in a byte[] (VARBINARY) column.
+ * The encrypted value is kept as raw bytes behind its {@link EncryptedAttributeConverter.CipherFormat} prefix, which
+ * saves the Base64 encoding and decoding on every write and read, and a third of the column size.
+ *
+ * @param <X> The type of model entity attribute.
+ */
+public abstract class BinaryEncryptedAttributeConverter<X> implements AttributeConverter<X, byte[]> {
+
+    private final EncryptedAttributeConverter<X> converter;
+
+    /**
+     * @param converter The converter that serializes and deserializes the attribute of type X.
+     */
+    protected BinaryEncryptedAttributeConverter(EncryptedAttributeConverter<X> converter) {
+        this.converter = converter;
+    }
+
+    @Override
+    public final byte[] convertToDatabaseColumn(X x) {
+        return converter.convertToBinaryDatabaseColumn(x);
+    }
+
+    @Override
+    public final X convertToEntityAttribute(byte[] dbValue) {
+        return converter.convertBinaryToEntityAttribute(dbValue);
+    }
+}
@@ -0,0 +1,31 @@
+package com.abhishek.demo.db.converter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity String field as the blind index of an encrypted attribute of the same entity. The field is kept
+ * up to date by {@link BlindIndexListener} with a keyed hash ({@link BlindIndexer}) of the attribute's plain text
+ * value, so equality searches can probe an indexed column instead of decrypting every row. Unlike the encrypted
+ * column, the blind index does not depend on the {@link EncryptedAttributeConverter.CipherFormat} or the IV that
+ * wrote the row.
+ * <pre>
+ *     &#64;Convert(converter = StringEncryptedAttributeConverter.class)
+ *     private String accountNumber;
+ *
+ *     &#64;BlindIndex("accountNumber")
+ *     private String accountNumberBlindIndex;
+ * </pre>
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BlindIndex {
+
+    /**
+     * @return Name of the field holding the encrypted attribute. The field must be annotated with
+     * {@link javax.persistence.Convert} using an {@link EncryptedAttributeConverter}.
+     */
+    String value();
+}
@@ -0,0 +1,84 @@
+package com.abhishek.demo.db.converter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.persistence.Convert;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JPA entity listener that keeps the {@link BlindIndex} fields of an entity in sync with the encrypted attributes
+ * they index, right before the entity is inserted or updated.
+ */
+@Slf4j
+public class BlindIndexListener {
+
+    /**
+     * The blind indexed fields of each entity class, resolved once through reflection.
+     */
+    private static final Map<Class<?>, List<IndexedField>> indexedFields = new ConcurrentHashMap<>();
+
+    @PrePersist
+    @PreUpdate
+    public void updateBlindIndexes(Object entity) throws IllegalAccessException {
+        for (IndexedField indexedField : indexedFields.computeIfAbsent(entity.getClass(), BlindIndexListener::findIndexedFields)) {
+            indexedField.update(entity);
+        }
+    }
+
+    private static List<IndexedField> findIndexedFields(Class<?> entityClass) {
+        List<IndexedField> fields = new ArrayList<>();
+        for (Class<?> c = entityClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field indexField : c.getDeclaredFields()) {
+                BlindIndex blindIndex = indexField.getAnnotation(BlindIndex.class);
+                if (blindIndex != null) {
+                    fields.add(new IndexedField(indexField, findSourceField(c, blindIndex.value())));
+                }
+            }
+        }
+        log.debug("Found {} blind indexed fields in {}", fields.size(), entityClass.getSimpleName());
+        return fields.isEmpty() ? Collections.emptyList() : fields;
+    }
+
+    private static Field findSourceField(Class<?> entityClass, String name) {
+        try {
+            return entityClass.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Blind indexed field " + name + " not found in " + entityClass.getName(), e);
+        }
+    }
+
+    private static final class IndexedField {
+        private final Field indexField;
+        private final Field sourceField;
+        private final EncryptedAttributeConverter<Object> converter;
+
+        @SuppressWarnings("unchecked")
+        private IndexedField(Field indexField, Field sourceField) {
+            Convert convert = sourceField.getAnnotation(Convert.class);
+            if (convert == null || !EncryptedAttributeConverter.class.isAssignableFrom(convert.converter())) {
+                throw new IllegalStateException("Blind indexed field " + sourceField.getName()
+                        + " is not converted by an " + EncryptedAttributeConverter.class.getSimpleName());
+            }
+            try {
+                this.converter = (EncryptedAttributeConverter<Object>) convert.converter().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create converter " + convert.converter().getName(), e);
+            }
+            indexField.setAccessible(true);
+            sourceField.setAccessible(true);
+            this.indexField = indexField;
+            this.sourceField = sourceField;
+        }
+
+        private void update(Object entity) throws IllegalAccessException {
+            indexField.set(entity, BlindIndexer.indexOf(sourceField.get(entity), converter));
+        }
+    }
+}
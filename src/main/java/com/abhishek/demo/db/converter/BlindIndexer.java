@@ -0,0 +1,215 @@
+package com.abhishek.demo.db.converter;
+
+import com.abhishek.demo.util.SecretLoader;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.xml.crypto.KeySelectorException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes blind indexes: a keyed HMAC of an attribute's plain text value, that is stored next to its encrypted
+ * column and can be searched for equality without decrypting any row.
+ * <p>
+ * New indexes are computed with the latest version of the key. Rows indexed before the key was rotated keep their
+ * index until they are next updated, so searches look for the indexes of every version of the key, see
+ * {@link #indexesOf(String)}.
+ *
+ * @see BlindIndex
+ */
+@Slf4j
+public final class BlindIndexer {
+
+    /**
+     * Alias of the HMAC key, as loaded through {@link SecretLoader}.
+     */
+    static final String KEY_ALIAS = "BLIND_INDEX_V1";
+    static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_SIZE = 256;
+
+    /**
+     * Length of a blind index column, the Base64 length of an HMAC-SHA256.
+     */
+    public static final int INDEX_LENGTH = 44;
+
+    /**
+     * All versions of the key, loaded on first use, and dropped on {@link EncryptedAttributeConverter#keysRotated()}.
+     */
+    private static volatile KeyVersions keys;
+
+    /**
+     * Each thread's {@link Mac}, along with the key it was initialized with.
+     */
+    private static final ThreadLocal<KeyedMac> macs = new ThreadLocal<>();
+
+    private BlindIndexer() {
+    }
+
+    private static KeyVersions keys() {
+        KeyVersions keys = BlindIndexer.keys;
+        if (keys == null) {
+            synchronized (BlindIndexer.class) {
+                keys = BlindIndexer.keys;
+                if (keys == null) {
+                    BlindIndexer.keys = keys = loadKeys();
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static KeyVersions loadKeys() {
+        long startNanos = System.nanoTime();
+        SecretLoader loader = EncryptedAttributeConverter.getSecretLoader();
+        int latestVersion = 0;
+        try {
+            latestVersion = loader.getLatestVersion(KEY_ALIAS);
+        } catch (KeySelectorException e) {
+            log.error("Could not find latest key version for blind index : {}", KEY_ALIAS);
+        }
+        SecretKey latest = null;
+        List<SecretKey> older = new ArrayList<>();
+        for (int version = 0; version <= latestVersion; version++) {
+            try {
+                SecretKey key = loader.getSecretKey(KEY_ALIAS, version, KEY_SIZE);
+                if (version == latestVersion) {
+                    latest = key;
+                } else {
+                    older.add(key);
+                }
+            } catch (KeySelectorException e) {
+                if (version == latestVersion) {
+                    log.error("Could not initialize key for blind index : {}, version : {}", KEY_ALIAS, version);
+                } else {
+                    log.debug("No key for blind index {}, version {}", KEY_ALIAS, version);
+                }
+            }
+        }
+        log.info("Loaded {} key versions of blind index {} in {} ms", older.size() + (latest == null ? 0 : 1),
+                KEY_ALIAS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return new KeyVersions(latest, older);
+    }
+
+    /**
+     * Drops the loaded keys, to be re-loaded from the current {@link SecretLoader} on next use.
+     */
+    static void unloadKeys() {
+        keys = null;
+    }
+
+    private static Mac mac() {
+        SecretKey key = keys().latest;
+        KeyedMac keyed = macs.get();
+        if (keyed == null || keyed.key != key) {
+            keyed = new KeyedMac(newMac(key), key);
+            macs.set(keyed);
+        }
+        return keyed.mac;
+    }
+
+    private static Mac newMac(SecretKey key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException e) {
+            log.error("JVM environment do no support expected algorithm : " + ALGORITHM, e);
+            throw new IllegalArgumentException(e);
+        } catch (InvalidKeyException e) {
+            log.error("Key for blind index ({}) is not valid.", KEY_ALIAS, e);
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @param value     The plain text attribute
+     * @param converter The converter that encrypts the attribute, used for serializing it to bytes.
+     * @param <X>       The type of model entity attribute
+     * @return The blind index of the value, or null for a null value.
+     */
+    public static <X> String indexOf(X value, EncryptedAttributeConverter<X> converter) {
+        if (value == null) return null;
+        return indexOf(converter.convertAttributeToBytes(value));
+    }
+
+    /**
+     * Blind index of a String attribute encrypted by {@link StringEncryptedAttributeConverter}.
+     *
+     * @param value The plain text attribute
+     * @return The blind index of the value, or null for a null value.
+     */
+    public static String indexOf(String value) {
+        if (value == null) return null;
+        return indexOf(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String indexOf(byte[] plainText) {
+        // doFinal resets the Mac for the next call on this thread
+        return Base64.getEncoder().encodeToString(mac().doFinal(plainText));
+    }
+
+    /**
+     * Blind indexes of the value under every loaded version of the key, to search rows indexed before the key was
+     * rotated as well as those indexed after.
+     *
+     * @param value     The plain text attribute
+     * @param converter The converter that encrypts the attribute, used for serializing it to bytes.
+     * @param <X>       The type of model entity attribute
+     * @return The blind indexes of the value, the one of the latest key version first. Empty for a null value.
+     */
+    public static <X> List<String> indexesOf(X value, EncryptedAttributeConverter<X> converter) {
+        if (value == null) return Collections.emptyList();
+        return indexesOf(converter.convertAttributeToBytes(value));
+    }
+
+    /**
+     * Same as {@link #indexesOf(Object, EncryptedAttributeConverter)}, for a String attribute encrypted by
+     * {@link StringEncryptedAttributeConverter}.
+     *
+     * @param value The plain text attribute
+     * @return The blind indexes of the value, the one of the latest key version first. Empty for a null value.
+     */
+    public static List<String> indexesOf(String value) {
+        if (value == null) return Collections.emptyList();
+        return indexesOf(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> indexesOf(byte[] plainText) {
+        List<SecretKey> older = keys().older;
+        List<String> indexes = new ArrayList<>(older.size() + 1);
+        indexes.add(indexOf(plainText));
+        // searches are rare compared to writes, so older versions do not get a Mac of their own on each thread
+        for (SecretKey key : older) {
+            indexes.add(Base64.getEncoder().encodeToString(newMac(key).doFinal(plainText)));
+        }
+        return indexes;
+    }
+
+    private static final class KeyVersions {
+        private final SecretKey latest;
+        private final List<SecretKey> older;
+
+        private KeyVersions(SecretKey latest, List<SecretKey> older) {
+            this.latest = latest;
+            this.older = older;
+        }
+    }
+
+    private static final class KeyedMac {
+        private final Mac mac;
+        private final SecretKey key;
+
+        private KeyedMac(Mac mac, SecretKey key) {
+            this.mac = mac;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.abhishek.demo.db.converter;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.NullCipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread confined pool of initialized {@link Cipher} instances, one per {@link CipherFormat} for each of encryption
+ * and decryption. A {@link Cipher} is not thread safe, but it resets itself to its initialized state after every
+ * {@link Cipher#doFinal}, so a thread can keep re-using the same instance without paying the provider lookup of
+ * {@link Cipher#getInstance(String)} and the key schedule of {@link Cipher#init} on each attribute conversion.
+ *
+ * @implNote A pooled instance remembers the key and IV it was initialized with, and is re-initialized when asked for
+ * a different key or IV, e.g. another version of the format's key, so key rotation does not need a pool flush.
+ */
+public final class CipherPool {
+
+    private final ThreadLocal<Map<CipherFormat, PooledCipher>> encryptCiphers = ThreadLocal.withInitial(() -> new EnumMap<>(CipherFormat.class));
+    private final ThreadLocal<Map<CipherFormat, PooledCipher>> decryptCiphers = ThreadLocal.withInitial(() -> new EnumMap<>(CipherFormat.class));
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CipherPool() {
+    }
+
+    /**
+     * Gets an initialized {@link Cipher} for the given format and mode, confined to the calling thread. The returned
+     * instance must not be handed over to other threads.
+     *
+     * @param algo   The cipher algo the instance is initialized for
+     * @param key    The version of the format's key the instance is initialized with
+     * @param iv     The IV that goes with the key, null if the format needs none
+     * @param opmode Either {@link Cipher#ENCRYPT_MODE} or {@link Cipher#DECRYPT_MODE}
+     * @return A ready to use {@link Cipher}
+     */
+    Cipher acquire(CipherFormat algo, SecretKey key, IvParameterSpec iv, int opmode) throws NoSuchAlgorithmException,
+            NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+        Map<CipherFormat, PooledCipher> ciphers = ciphersFor(opmode).get();
+
+        PooledCipher pooled = ciphers.get(algo);
+        if (pooled != null && pooled.key == key && pooled.iv == iv) {
+            hits.increment();
+            return pooled.cipher;
+        }
+        misses.increment();
+
+        Cipher cipher = algo.getCipherName() == null ? new NullCipher() : Cipher.getInstance(algo.getCipherName());
+        if (iv != null) {
+            cipher.init(opmode, key, iv);
+        } else {
+            cipher.init(opmode, key);
+        }
+        ciphers.put(algo, new PooledCipher(cipher, key, iv));
+        return cipher;
+    }
+
+    /**
+     * Same as {@link #acquire(CipherFormat, SecretKey, IvParameterSpec, int)}, for formats with a different IV (nonce) for each value. The pooled
+     * instance is re-initialized with the given parameters on every call, which still spares the provider lookup,
+     * and lets the provider skip the key schedule as long as the key stays the same.
+     *
+     * @param algo          The cipher algo the instance is initialized for
+     * @param key           The version of the format's key the instance is initialized with
+     * @param opmode        Either {@link Cipher#ENCRYPT_MODE} or {@link Cipher#DECRYPT_MODE}
+     * @param perValueSpec  The IV (nonce) parameters of the value to encrypt or decrypt
+     * @return A ready to use {@link Cipher}
+     */
+    Cipher acquire(CipherFormat algo, SecretKey key, int opmode, AlgorithmParameterSpec perValueSpec)
+            throws NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException,
+            InvalidAlgorithmParameterException {
+        Map<CipherFormat, PooledCipher> ciphers = ciphersFor(opmode).get();
+
+        PooledCipher pooled = ciphers.get(algo);
+        Cipher cipher;
+        if (pooled != null) {
+            hits.increment();
+            cipher = pooled.cipher;
+        } else {
+            misses.increment();
+            cipher = Cipher.getInstance(algo.getCipherName());
+            ciphers.put(algo, new PooledCipher(cipher, key, null));
+        }
+        cipher.init(opmode, key, perValueSpec);
+        return cipher;
+    }
+
+    /**
+     * Drops the calling thread's instance for the given format and mode. To be called when a {@link Cipher} operation
+     * failed midway, as the instance may then be left in an unusable state.
+     *
+     * @param algo   The cipher algo whose instance is to be dropped
+     * @param opmode Either {@link Cipher#ENCRYPT_MODE} or {@link Cipher#DECRYPT_MODE}
+     */
+    void invalidate(CipherFormat algo, int opmode) {
+        ciphersFor(opmode).get().remove(algo);
+    }
+
+    private ThreadLocal<Map<CipherFormat, PooledCipher>> ciphersFor(int opmode) {
+        switch (opmode) {
+            case Cipher.ENCRYPT_MODE:
+                return encryptCiphers;
+            case Cipher.DECRYPT_MODE:
+                return decryptCiphers;
+            default:
+                throw new IllegalArgumentException("Unsupported cipher mode : " + opmode);
+        }
+    }
+
+    /**
+     * @return Number of times an already initialized {@link Cipher} was re-used.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of times a {@link Cipher} had to be created or re-initialized.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static final class PooledCipher {
+        private final Cipher cipher;
+        private final SecretKey key;
+        private final IvParameterSpec iv;
+
+        private PooledCipher(Cipher cipher, SecretKey key, IvParameterSpec iv) {
+            this.cipher = cipher;
+            this.key = key;
+            this.iv = iv;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.abhishek.demo.db.converter;
+
+import java.util.Arrays;
+
+/**
+ * Thread confined scratch space for attribute conversions, so that reading an encrypted column does not allocate
+ * intermediate Base64 and decrypted byte arrays for every row. Also carries a Base64 decoder that reads straight from
+ * a region of the DB string into such a buffer, without first copying the region into a {@link String} or byte array.
+ *
+ * @implNote Buffers are re-used by the next conversion on the same thread, so a converter must never hold on to them.
+ */
+final class ConversionBuffer {
+
+    /**
+     * Buffers above this size are not retained by the thread, to not pin memory after converting a rare huge value.
+     */
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private static final int[] BASE64_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private ConversionBuffer() {
+    }
+
+    /**
+     * @param minCapacity The least number of bytes the caller needs
+     * @return A buffer of at least the given capacity, owned by the calling thread until its next call.
+     */
+    static byte[] acquire(int minCapacity) {
+        byte[] buffer = buffers.get();
+        if (buffer.length >= minCapacity) {
+            return buffer;
+        }
+        buffer = new byte[Math.max(minCapacity, buffer.length * 2)];
+        if (buffer.length <= MAX_RETAINED_SIZE) {
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Wipes the first length bytes of the buffer, so that decrypted values do not linger in the thread's scratch space.
+     */
+    static void wipe(byte[] buffer, int length) {
+        Arrays.fill(buffer, 0, length, (byte) 0);
+    }
+
+    /**
+     * @param encoded Number of Base64 characters
+     * @return The largest number of bytes the given number of Base64 characters can decode to.
+     */
+    static int maxDecodedLength(int encoded) {
+        return (encoded + 3) / 4 * 3;
+    }
+
+    /**
+     * Decodes the standard (RFC 4648) Base64 characters of src, from the given index up to its end, into dst.
+     *
+     * @param src  The string holding the Base64 characters
+     * @param from Index of the first Base64 character in src
+     * @param dst  Buffer of at least {@link #maxDecodedLength(int)} capacity
+     * @return Number of bytes decoded into dst.
+     * @throws IllegalArgumentException if src contains characters outside of the Base64 alphabet, or anything but
+     *                                  the padding of the last group after its first {@code '='}.
+     */
+    static int decodeBase64(String src, int from, byte[] dst) {
+        int bits = 0;
+        int bitCount = 0;
+        int length = 0;
+        for (int i = from; i < src.length(); i++) {
+            char c = src.charAt(i);
+            if (c == '=') {
+                checkPadding(src, from, i);
+                break;
+            }
+            int value = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Illegal base64 character " + Integer.toHexString(c));
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                dst[length++] = (byte) (bits >> bitCount);
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Checks that the padding starting at index padding runs up to the end of src, and completes the last group of 4
+     * characters, as {@link java.util.Base64.Decoder} does, so that a truncated or garbled value fails to decode.
+     */
+    private static void checkPadding(String src, int from, int padding) {
+        for (int i = padding + 1; i < src.length(); i++) {
+            if (src.charAt(i) != '=') {
+                throw new IllegalArgumentException("Input byte array has incorrect ending byte at " + (i - from));
+            }
+        }
+        int groupLength = (padding - from) % 4;
+        if (groupLength < 2 || groupLength + src.length() - padding != 4) {
+            throw new IllegalArgumentException("Input byte array has wrong 4-byte ending unit");
+        }
+    }
+}
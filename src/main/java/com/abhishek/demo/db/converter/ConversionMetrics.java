@@ -0,0 +1,100 @@
+package com.abhishek.demo.db.converter;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the encryption and decryption of attribute values, tagged by {@link CipherFormat} and direction. As
+ * converters are instantiated by the JPA provider rather than by Spring, meters are registered with
+ * {@link Metrics#globalRegistry}, to which Spring Boot adds its own registries.
+ * <ul>
+ *     <li>{@code db.encryption.conversions}: timer with latency histogram, counting conversions</li>
+ *     <li>{@code db.encryption.bytes}: bytes encrypted or decrypted</li>
+ *     <li>{@code db.encryption.failures}: failed conversions, also tagged by exception type</li>
+ *     <li>{@code db.encryption.cipher.pool.*} and {@code db.encryption.cache.*}: hits, misses and evictions of the
+ *     {@link CipherPool} and {@link DecryptedValueCache}</li>
+ * </ul>
+ *
+ * @implNote Timers and counters of every format and direction are looked up once, so the hot path does not go
+ * through the registry's meter lookup.
+ */
+final class ConversionMetrics {
+
+    static final String ENCRYPT = "encrypt";
+    static final String DECRYPT = "decrypt";
+
+    private final MeterRegistry registry;
+    private final Map<CipherFormat, Meters> encryptMeters = new EnumMap<>(CipherFormat.class);
+    private final Map<CipherFormat, Meters> decryptMeters = new EnumMap<>(CipherFormat.class);
+
+    ConversionMetrics(MeterRegistry registry, CipherPool cipherPool, DecryptedValueCache cache) {
+        this.registry = registry;
+        for (CipherFormat format : CipherFormat.values()) {
+            encryptMeters.put(format, new Meters(registry, format, ENCRYPT));
+            decryptMeters.put(format, new Meters(registry, format, DECRYPT));
+        }
+        FunctionCounter.builder("db.encryption.cipher.pool.hits", cipherPool, CipherPool::getHitCount)
+                .description("Conversions that re-used an initialized cipher").register(registry);
+        FunctionCounter.builder("db.encryption.cipher.pool.misses", cipherPool, CipherPool::getMissCount)
+                .description("Conversions that created or re-initialized a cipher").register(registry);
+        FunctionCounter.builder("db.encryption.cache.hits", cache, DecryptedValueCache::getHitCount)
+                .register(registry);
+        FunctionCounter.builder("db.encryption.cache.misses", cache, DecryptedValueCache::getMissCount)
+                .register(registry);
+        FunctionCounter.builder("db.encryption.cache.evictions", cache, DecryptedValueCache::getEvictionCount)
+                .register(registry);
+    }
+
+    void recordEncryption(CipherFormat format, int bytes, long startNanos) {
+        encryptMeters.get(format).record(bytes, startNanos);
+    }
+
+    void recordDecryption(CipherFormat format, int bytes, long startNanos) {
+        decryptMeters.get(format).record(bytes, startNanos);
+    }
+
+    /**
+     * @param direction Either {@link #ENCRYPT} or {@link #DECRYPT}
+     * @param e         The exception the conversion failed with. Wrapped checked exceptions are counted by the type of
+     *                  their cause.
+     */
+    void recordFailure(CipherFormat format, String direction, Exception e) {
+        Throwable cause = e instanceof IllegalArgumentException && e.getCause() != null ? e.getCause() : e;
+        registry.counter("db.encryption.failures", "format", format.name(), "direction", direction,
+                "exception", cause.getClass().getSimpleName()).increment();
+    }
+
+    private static final class Meters {
+        private final Timer timer;
+        private final Counter bytes;
+
+        private Meters(MeterRegistry registry, CipherFormat format, String direction) {
+            timer = Timer.builder("db.encryption.conversions")
+                    .description("Time spent encrypting or decrypting attribute values")
+                    .tags("format", format.name(), "direction", direction)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(500))
+                    .maximumExpectedValue(Duration.ofMillis(100))
+                    .register(registry);
+            bytes = Counter.builder("db.encryption.bytes")
+                    .baseUnit("bytes")
+                    .description("Plain text bytes encrypted, or cipher text bytes decrypted")
+                    .tags("format", format.name(), "direction", direction)
+                    .register(registry);
+        }
+
+        private void record(int byteCount, long startNanos) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            bytes.increment(byteCount);
+        }
+    }
+}
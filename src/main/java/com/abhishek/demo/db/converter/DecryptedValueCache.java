@@ -0,0 +1,214 @@
+package com.abhishek.demo.db.converter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of decrypted attribute values, keyed by the encrypted DB value, that spares decrypting the same
+ * ciphertext over and over when hot rows are read by most requests. Disabled until {@link #configure} is called with
+ * a positive size.
+ * <p>
+ * Plain text is kept as the serialized byte array rather than as the attribute object, so it can be overwritten with
+ * zeros as soon as its entry is evicted, expired or cleared, instead of lingering on the heap as a String.
+ *
+ * @implNote The cache is split in independently locked segments, each an access ordered (LRU) or insertion ordered
+ * (FIFO) {@link LinkedHashMap}, to keep lock contention low on the read path.
+ */
+public final class DecryptedValueCache {
+
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently read entry.
+         */
+        LRU,
+        /**
+         * Evicts the oldest entry, regardless of reads.
+         */
+        FIFO
+    }
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private volatile Segment[] segments;
+    private volatile long expireAfterNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    DecryptedValueCache() {
+    }
+
+    /**
+     * (Re)configures the cache, dropping all its entries.
+     *
+     * @param maxSize        Maximum number of cached values. The cache is disabled when 0.
+     * @param expireAfter    Time after which a cached value is dropped, since it was put in the cache.
+     * @param evictionPolicy Which entry to drop once the cache is full.
+     */
+    public synchronized void configure(int maxSize, Duration expireAfter, EvictionPolicy evictionPolicy) {
+        Segment[] old = this.segments;
+        if (maxSize > 0) {
+            // a power of two no greater than maxSize, and the remainder spread over the first segments, so that the
+            // segments together never hold more than maxSize values
+            int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+            Segment[] segments = new Segment[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                int segmentSize = maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0);
+                segments[i] = new Segment(segmentSize, evictionPolicy == EvictionPolicy.LRU);
+            }
+            this.expireAfterNanos = expireAfter.toNanos();
+            this.segments = segments;
+        } else {
+            this.segments = null;
+        }
+        clear(old);
+    }
+
+    boolean isEnabled() {
+        return segments != null;
+    }
+
+    /**
+     * @return Number of values currently cached, including expired ones not dropped yet.
+     */
+    int size() {
+        Segment[] segments = this.segments;
+        if (segments == null) return 0;
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Looks the encrypted value up and, if cached, deserializes its plain text with the given converter.
+     *
+     * @return The attribute, or null if the value is not cached.
+     */
+    <X> X get(String encryptedValue, EncryptedAttributeConverter<X> converter) {
+        Segment[] segments = this.segments;
+        if (segments == null) return null;
+        Segment segment = segmentFor(segments, encryptedValue);
+        synchronized (segment) {
+            Entry entry = segment.get(encryptedValue);
+            if (entry != null && entry.expiresAtNanos - System.nanoTime() < 0) {
+                segment.remove(encryptedValue);
+                evict(entry);
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            // converted under the lock, as the plain text is wiped as soon as the entry is evicted
+            return converter.convertBytesToAttribute(entry.plainText, 0, entry.plainText.length);
+        }
+    }
+
+    /**
+     * Caches a copy of the given plain text region for the encrypted value.
+     */
+    void put(String encryptedValue, byte[] buffer, int offset, int length) {
+        Segment[] segments = this.segments;
+        if (segments == null) return;
+        Entry entry = new Entry(Arrays.copyOfRange(buffer, offset, offset + length), System.nanoTime() + expireAfterNanos);
+        Segment segment = segmentFor(segments, encryptedValue);
+        synchronized (segment) {
+            Entry replaced = segment.put(encryptedValue, entry);
+            if (replaced != null) {
+                wipe(replaced);
+            }
+        }
+    }
+
+    /**
+     * Drops and wipes all cached values, e.g. when keys are rotated and cached plain texts may no longer be valid.
+     */
+    public void clear() {
+        clear(segments);
+    }
+
+    private void clear(Segment[] segments) {
+        if (segments == null) return;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Iterator<Entry> entries = segment.values().iterator(); entries.hasNext(); ) {
+                    wipe(entries.next());
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    private static Segment segmentFor(Segment[] segments, String encryptedValue) {
+        int hash = encryptedValue.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private void evict(Entry entry) {
+        evictions.increment();
+        wipe(entry);
+    }
+
+    private static void wipe(Entry entry) {
+        Arrays.fill(entry.plainText, (byte) 0);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Ratio of lookups served from the cache, 0 when there has been no lookup yet.
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    private static final class Entry {
+        private final byte[] plainText;
+        private final long expiresAtNanos;
+
+        private Entry(byte[] plainText, long expiresAtNanos) {
+            this.plainText = plainText;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<String, Entry> {
+        private final int maxSize;
+
+        private Segment(int maxSize, boolean accessOrder) {
+            super(16, 0.75f, accessOrder);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                evict(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    }
+}
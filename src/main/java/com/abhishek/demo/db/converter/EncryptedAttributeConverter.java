@@ -1,22 +1,31 @@
 package com.abhishek.demo.db.converter;
 
 import com.abhishek.demo.util.SecretLoader;
+import io.micrometer.core.instrument.Metrics;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Base64Utils;
 
 import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.persistence.AttributeConverter;
 import javax.xml.crypto.KeySelectorException;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UnknownFormatConversionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A non final JPA Attribute converter class that helps in seamless encryption and decryption of DB Entity attributes.
@@ -25,30 +34,52 @@ import java.util.UnknownFormatConversionException;
  * strings for exact DB search.
  *
  * @param <X> The type of model entity attribute. This shall final concreted in implementing final subclass.
- * @implNote There is a caveat in this approach that currently only the {@link CipherFormat#getDefault()} formatted search will
- * take place for search queries. We are currently observing if a better blanket search can be done for all
- * known {@link CipherFormat}s.
+ * @implNote Searching on the encrypted column itself only matches rows written in the {@link CipherFormat#getDefault()}
+ * format with a fixed IV, and with the latest version of its key. Searchable attributes should instead carry a {@link BlindIndex} column and be searched
+ * through it, which matches rows of all known {@link CipherFormat}s.
  */
 @Slf4j
 public abstract class EncryptedAttributeConverter<X> implements AttributeConverter<X, String> {
 
     /**
-     * A sample implementation of a Secret Key loaded for a given {@link CipherFormat}. This one returns a
-     * new {@link SecretKey} each time the method is invoked. Works well with in memory database, whose entries are
-     * recreated after each startup, as keys will also get changed after each startup.
+     * A sample implementation of a Secret Key loaded for a given {@link CipherFormat}. This one generates a
+     * new {@link SecretKey} the first time an alias is asked for, and returns it for the lifetime of the JVM. Works well
+     * with in memory database, whose entries are recreated after each startup, as keys will also get changed after
+     * each startup.
      *
-     * @implNote Not recommended for real use. Implement a {@link java.security.KeyStore} of sorts to load
-     * {@link SecretKey} from.
+     * @implNote Not recommended for real use. Use {@link com.abhishek.demo.util.KeyStoreSecretLoader} to load
+     * {@link SecretKey}s from a {@link java.security.KeyStore} instead. Keys are generated from a non-blocking
+     * {@link SecureRandom} rather than {@link SecureRandom#getInstanceStrong()}, which may block on entropy in
+     * containers.
      */
-    private static final SecretLoader defaultSecretLoader = new SecretLoader() {
+    static final SecretLoader defaultSecretLoader = new SecretLoader() {
+        private final SecureRandom keyRandom = new SecureRandom();
+        private final Map<String, SecretKey> keys = new ConcurrentHashMap<>();
+        private final Map<String, IvParameterSpec> ivs = new ConcurrentHashMap<>();
+
         @Override
         public SecretKey getSecretKey(String alias, int length) throws KeySelectorException {
+            SecretKey key = keys.get(alias);
+            if (key == null) {
+                key = generateKey(alias, length);
+                if (key != null) {
+                    SecretKey existing = keys.putIfAbsent(alias, key);
+                    key = existing != null ? existing : key;
+                }
+            }
+            return key;
+        }
 
+        private SecretKey generateKey(String alias, int length) throws KeySelectorException {
             try {
-                if (alias.equals("AES_V1")) {
+                if (alias.equals("AES_V1") || alias.equals("AES_GCM_V2")) {
                     KeyGenerator aesKeyGenerator = KeyGenerator.getInstance("AES");
-                    aesKeyGenerator.init(length, SecureRandom.getInstanceStrong());
+                    aesKeyGenerator.init(length, keyRandom);
                     return aesKeyGenerator.generateKey();
+                } else if (alias.equals(BlindIndexer.KEY_ALIAS)) {
+                    KeyGenerator hmacKeyGenerator = KeyGenerator.getInstance(BlindIndexer.ALGORITHM);
+                    hmacKeyGenerator.init(length, keyRandom);
+                    return hmacKeyGenerator.generateKey();
                 } else if (alias.equals("BASE_64")) {
                     return null;
                 }
@@ -60,51 +91,155 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
 
         @Override
         public IvParameterSpec getIvSpec(String alias) throws IllegalArgumentException {
-            try {
-                if (alias.equals("AES_V1")) {
+            if (alias.equals("AES_V1")) {
+                return ivs.computeIfAbsent(alias, a -> {
                     byte[] ivBuffer = new byte[16]; // AES requires 16 byte => 128 bit IV
-                    SecureRandom.getInstanceStrong().nextBytes(ivBuffer);
+                    keyRandom.nextBytes(ivBuffer);
                     return new IvParameterSpec(ivBuffer);
-                } else if (alias.equals("BASE_64")) {
-                    return null;
-                }
-                throw new IllegalArgumentException("Unsupported alias for generating IV for alias " + alias);
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalArgumentException("Could not get strong random for generating IV for alias " + alias, e);
+                });
+            } else if (alias.equals("BASE_64") || alias.equals("AES_GCM_V2")) {
+                return null;    // AES_GCM_V2 uses a random nonce per value
             }
+            throw new IllegalArgumentException("Unsupported alias for generating IV for alias " + alias);
         }
     };
 
+    /**
+     * Where the keys of all {@link CipherFormat}s and of {@link BlindIndexer} are loaded from.
+     */
+    private static volatile SecretLoader secretLoader = defaultSecretLoader;
+
+    /**
+     * @return The {@link SecretLoader} keys are currently loaded from.
+     */
+    public static SecretLoader getSecretLoader() {
+        return secretLoader;
+    }
+
+    /**
+     * Replaces the source of all keys, e.g. with a {@link com.abhishek.demo.util.KeyStoreSecretLoader} once the
+     * application is configured. Keys already loaded from the previous loader are dropped, as on {@link #keysRotated()}.
+     *
+     * @param loader The new source of keys
+     */
+    public static void setSecretLoader(@NonNull SecretLoader loader) {
+        secretLoader = loader;
+        keysRotated();
+    }
+
     /**
      * Enum representing all available and legacy DB encryption logics. Each entry denotes and algorithm and
      * the unique key used by the given named approach.
      */
     public enum CipherFormat {
-        BASE_64("BASE64", null, 0),
-        AES_V1("AES1", "AES/CBC/PKCS5Padding", 256);
+        BASE_64("BASE64", null, 0, 0),
+        AES_V1("AES1", "AES/CBC/PKCS5Padding", 256, 0),
+        /**
+         * Authenticated encryption with a random 12 byte nonce per value. The DB value is laid out as the nonce,
+         * followed by the cipher text, followed by the 16 byte authentication tag.
+         */
+        AES_GCM_V2("AES2", "AES/GCM/NoPadding", 256, 12);
 
         //        private static Map<String, CipherFormat> dbToEnumMap = new HashMap<>();
 
 
+        private static final CipherFormat[] FORMATS = values();
+
+        private static volatile CipherFormat defaultFormat = BASE_64;
+
         private final String dbPrefix;
+        private final byte[] dbPrefixBytes;
         private final String cipherName;
         private final int keySize;
-        private SecretKey key;
-        private IvParameterSpec iv;
+        private final int nonceLength;
+
+        /**
+         * Latest version of the keys, which new values are encrypted with. Loaded on first use rather than in the enum
+         * initializer, so class loading never waits on a {@link SecretLoader}. Dropped on
+         * {@link EncryptedAttributeConverter#keysRotated()}.
+         */
+        private volatile FormatKeys keys;
 
-        CipherFormat(String dbPrefix, String cipherName, int keySize) {
+        /**
+         * Keys of older versions, loaded as values written before a rotation are read, and dropped along with
+         * {@link #keys}.
+         */
+        private final Map<Integer, FormatKeys> olderKeys = new ConcurrentHashMap<>();
+
+        CipherFormat(String dbPrefix, String cipherName, int keySize, int nonceLength) {
             this.dbPrefix = dbPrefix;
+            this.dbPrefixBytes = dbPrefix.getBytes(StandardCharsets.US_ASCII);
             this.cipherName = cipherName;
             this.keySize = keySize;
+            this.nonceLength = nonceLength;
+        }
+
+        private FormatKeys keys() {
+            FormatKeys keys = this.keys;
+            if (keys == null) {
+                synchronized (this) {
+                    keys = this.keys;
+                    if (keys == null) {
+                        this.keys = keys = loadLatestKeys();
+                    }
+                }
+            }
+            return keys;
+        }
+
+        private FormatKeys keys(int version) {
+            FormatKeys latest = keys();
+            if (latest.version == version) {
+                return latest;
+            }
+            return olderKeys.computeIfAbsent(version, v -> loadKeys(secretLoader, v));
+        }
+
+        private FormatKeys loadLatestKeys() {
+            if (cipherName == null) {
+                return new FormatKeys(this, 0, null, null);
+            }
+            SecretLoader loader = secretLoader;
+            int version = 0;
             try {
-                this.key = defaultSecretLoader.getSecretKey(this.name(), this.keySize);
+                version = loader.getLatestVersion(this.name());
             } catch (KeySelectorException e) {
-                log.error("Could not initialize key for CipherFormat : {}", this.name());
+                log.error("Could not find latest key version for CipherFormat : {}", this.name());
+            }
+            return loadKeys(loader, version);
+        }
+
+        private FormatKeys loadKeys(SecretLoader loader, int version) {
+            if (cipherName == null) {
+                return new FormatKeys(this, version, null, null);
             }
+            long startNanos = System.nanoTime();
+            SecretKey key = null;
+            IvParameterSpec iv = null;
             try {
-                this.iv = defaultSecretLoader.getIvSpec(this.name());
-            } catch (IllegalArgumentException e) {
-                log.error("Could not initialize IV for CipherFormat : {}", this.name());
+                key = loader.getSecretKey(this.name(), version, this.keySize);
+            } catch (KeySelectorException e) {
+                log.error("Could not initialize key for CipherFormat : {}, version : {}", this.name(), version);
+            }
+            if (nonceLength == 0) {
+                try {
+                    iv = loader.getIvSpec(this.name(), version);
+                } catch (IllegalArgumentException e) {
+                    log.error("Could not initialize IV for CipherFormat : {}, version : {}", this.name(), version);
+                }
+            }
+            log.info("Loaded keys of CipherFormat {}, version {} in {} ms", this.name(), version,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return new FormatKeys(this, version, key, iv);
+        }
+
+        /**
+         * Drops the loaded keys of all formats, to be re-loaded from the current {@link SecretLoader} on next use.
+         */
+        static void unloadKeys() {
+            for (CipherFormat format : FORMATS) {
+                format.keys = null;
+                format.olderKeys.clear();
             }
         }
 
@@ -117,6 +252,16 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
             return dbPrefix;
         }
 
+        /**
+         * The prefix new values are stored with: {@link #getDbPrefix()}, followed by the version of the key they are
+         * encrypted with unless it is version 0, e.g. {@code AES2.3}.
+         *
+         * @return DB Prefix string, including the latest key version.
+         */
+        public String getCurrentDbPrefix() {
+            return keys().dbPrefix;
+        }
+
         /**
          * @return a valid {@link Cipher} algorithm identifier.
          */
@@ -125,12 +270,19 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
         }
 
         /**
-         * The symmetric key for encryption and decryption of the attribute.
+         * @return Length of the random nonce stored in front of each encrypted value, 0 if the format uses a fixed IV.
+         */
+        public int getNonceLength() {
+            return nonceLength;
+        }
+
+        /**
+         * The latest version of the symmetric key for encryption and decryption of the attribute.
          *
          * @return SecretKey loaded from some {@link SecretLoader} for this {@link CipherFormat}
          */
         protected SecretKey getKey() {
-            return this.key;
+            return keys().key;
         }
 
         /**
@@ -140,16 +292,26 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
          * @return Optionally an {@link IvParameterSpec} if the scheme requires one.
          */
         protected Optional<IvParameterSpec> getIv() {
-            return Optional.ofNullable(this.iv);
+            return Optional.ofNullable(keys().iv);
         }
 
         /**
-         * Currently AES_V1.
+         * BASE_64, unless configured otherwise through {@link #setDefault(CipherFormat)}.
          *
          * @return The default {@link CipherFormat} used by this version of the application.
          */
         static CipherFormat getDefault() {
-            return BASE_64;
+            return defaultFormat;
+        }
+
+        /**
+         * Changes the format new values are encrypted with. Values already stored keep being readable in their own
+         * format, and can be migrated with {@link EncryptedAttributeConverter#reEncrypt(String, CipherFormat)}.
+         *
+         * @param format The new default {@link CipherFormat}
+         */
+        public static void setDefault(@NonNull CipherFormat format) {
+            defaultFormat = format;
         }
 
         /**
@@ -159,19 +321,157 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
          * @return null if cannot find a {@link CipherFormat} depicted by the given dbPrefix.
          */
         static CipherFormat getByDbPrefix(String dbPrefix) {
-            for (CipherFormat format : values()) {
-                if (format.dbPrefix.equals(dbPrefix)) {
+            return getByDbPrefix(dbPrefix, dbPrefix.length());
+        }
+
+        /**
+         * Same as {@link #getByDbPrefix(String)}, but matches the prefix in place, without cutting it out of the
+         * DB value first.
+         *
+         * @param dbValue   The DB value starting with the prefix
+         * @param prefixEnd Index in dbValue right after the prefix
+         * @return null if cannot find a {@link CipherFormat} depicted by the given dbPrefix.
+         */
+        static CipherFormat getByDbPrefix(String dbValue, int prefixEnd) {
+            for (CipherFormat format : FORMATS) {
+                if (format.dbPrefix.length() == prefixEnd && dbValue.startsWith(format.dbPrefix)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Binary column counterpart of {@link #getByDbPrefix(String, int)}.
+         *
+         * @param dbValue   The DB value starting with the ASCII prefix
+         * @param prefixEnd Index in dbValue right after the prefix
+         * @return null if cannot find a {@link CipherFormat} depicted by the given dbPrefix.
+         */
+        static CipherFormat getByDbPrefix(byte[] dbValue, int prefixEnd) {
+            for (CipherFormat format : FORMATS) {
+                byte[] prefix = format.dbPrefixBytes;
+                if (prefix.length == prefixEnd && regionEquals(dbValue, prefix)) {
                     return format;
                 }
             }
             return null;
         }
+
+        private static boolean regionEquals(byte[] dbValue, byte[] prefix) {
+            for (int i = 0; i < prefix.length; i++) {
+                if (dbValue[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * One version of the keys of a {@link CipherFormat}, along with the DB prefix of the values encrypted with it.
+     */
+    private static final class FormatKeys {
+        private final int version;
+        private final SecretKey key;
+        private final IvParameterSpec iv;
+        private final String dbPrefix;
+        private final byte[] dbPrefixBytes;
+
+        private FormatKeys(CipherFormat format, int version, SecretKey key, IvParameterSpec iv) {
+            this.version = version;
+            this.key = key;
+            this.iv = iv;
+            this.dbPrefix = version == 0 ? format.dbPrefix : format.dbPrefix + KEY_VERSION_SEPARATOR_CHAR + version;
+            this.dbPrefixBytes = dbPrefix.getBytes(StandardCharsets.US_ASCII);
+        }
     }
 
     /**
      * Delimiter that separates the Encryption Logic identifier and encrypted entity attribute in DB storage.
      */
     static final String ENTITY_SEPARATOR = ":";
+    private static final char ENTITY_SEPARATOR_CHAR = ':';
+
+    /**
+     * Delimiter that separates the {@link CipherFormat#getDbPrefix()} from the version of the key a value is encrypted
+     * with, e.g. {@code AES2.3:}. Values encrypted with version 0 carry no version, as written before keys had any.
+     */
+    private static final char KEY_VERSION_SEPARATOR_CHAR = '.';
+
+    /**
+     * Initialized {@link Cipher}s shared by all converter instances, as JPA creates one converter per mapped attribute.
+     */
+    private static final CipherPool cipherPool = new CipherPool();
+
+    /**
+     * Source of per-value nonces, see {@link CipherFormat#getNonceLength()}. Non-blocking, unlike
+     * {@link SecureRandom#getInstanceStrong()}, as it is used on every encryption.
+     */
+    private static final SecureRandom nonceRandom = new SecureRandom();
+
+    private static final int GCM_TAG_BITS = 128;
+
+    /**
+     * @return The pool of {@link Cipher}s used by all encrypted attribute conversions, e.g. to read its hit/miss counts.
+     */
+    public static CipherPool getCipherPool() {
+        return cipherPool;
+    }
+
+    /**
+     * Optional cache of decrypted values, shared by all converter instances. Disabled unless configured.
+     */
+    private static final DecryptedValueCache decryptedValueCache = new DecryptedValueCache();
+
+    /**
+     * @return The cache of decrypted values, to configure it or read its statistics.
+     */
+    public static DecryptedValueCache getDecryptedValueCache() {
+        return decryptedValueCache;
+    }
+
+    /**
+     * Latency, throughput and failure meters of all encrypted attribute conversions.
+     */
+    private static final ConversionMetrics metrics = new ConversionMetrics(Metrics.globalRegistry, cipherPool,
+            decryptedValueCache);
+
+    /**
+     * Called after every key rotation, e.g. to evict decrypted values cached outside of this converter.
+     */
+    private static final List<Runnable> keyRotationListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener to be run by {@link #keysRotated()}, after the keys were unloaded.
+     *
+     * @param listener Run on the thread that reported the rotation
+     */
+    public static void addKeyRotationListener(@NonNull Runnable listener) {
+        keyRotationListeners.add(listener);
+    }
+
+    public static void removeKeyRotationListener(Runnable listener) {
+        keyRotationListeners.remove(listener);
+    }
+
+    /**
+     * To be called whenever the keys of any {@link CipherFormat} are rotated, so that keys are re-loaded from the
+     * {@link SecretLoader} on next use, and no value decrypted with an older key is served anymore.
+     */
+    public static void keysRotated() {
+        CipherFormat.unloadKeys();
+        BlindIndexer.unloadKeys();
+        decryptedValueCache.clear();
+        log.info("Unloaded keys and cleared decrypted value cache after key rotation");
+        for (Runnable listener : keyRotationListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.error("Key rotation listener {} failed", listener, e);
+            }
+        }
+    }
 
     /**
      * Given {@link EncryptedAttributeConverter#convertAttributeToBytes} is implemented by an implementing subclass,
@@ -185,11 +485,14 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
     public final String convertToDatabaseColumn(X x) {
         if (x == null) return null;
         CipherFormat encryptionFormat = getEncryptionFormat(x);
+        FormatKeys keys = encryptionFormat.keys();
         byte[] painTextEntity = convertAttributeToBytes(x);
 
-        byte[] encryptedEntity = encode(encrypt(painTextEntity, encryptionFormat));
-        log.debug("Encrypted entity with logic {}", encryptionFormat.name());
-        return encryptionFormat.getDbPrefix() + ENTITY_SEPARATOR + new String(encryptedEntity, StandardCharsets.UTF_8);
+        byte[] encryptedEntity = encode(encrypt(painTextEntity, encryptionFormat, keys));
+        if (log.isDebugEnabled()) {
+            log.debug("Encrypted entity with logic {}, key version {}", encryptionFormat.name(), keys.version);
+        }
+        return keys.dbPrefix + ENTITY_SEPARATOR + new String(encryptedEntity, StandardCharsets.UTF_8);
     }
 
     /**
@@ -203,12 +506,188 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
     @Override
     public final X convertToEntityAttribute(String s) {
         if (s == null) return null;
-        String[] entity = s.split(ENTITY_SEPARATOR, 2);
-        CipherFormat decryptionFormat = getDecryptionFormat(entity[0]);
-        String encryptedEntity = entity.length == 2 ? entity[1] : "";
-        byte[] decryptedEntity = decrypt(decode(encryptedEntity), decryptionFormat);
-        log.debug("Decrypting entity with logic {}", decryptionFormat.name());
-        return convertBytesToAttribute(decryptedEntity);
+        X cached = decryptedValueCache.get(s, this);
+        if (cached != null) return cached;
+
+        int separator = s.indexOf(ENTITY_SEPARATOR_CHAR);
+        int prefixEnd = separator < 0 ? s.length() : separator;
+        int formatEnd = formatEnd(s, prefixEnd);
+        CipherFormat decryptionFormat = getDecryptionFormat(s, formatEnd);
+        FormatKeys keys = decryptionFormat.keys(keyVersion(s, formatEnd, prefixEnd));
+        if (log.isDebugEnabled()) {
+            log.debug("Decrypting entity with logic {}, key version {}", decryptionFormat.name(), keys.version);
+        }
+
+        // Base64 payload is decoded and then decrypted in place, in a buffer owned by this thread
+        // wiped whatever happens, as a failed decryption may leave part of the plain text behind
+        int payloadStart = separator < 0 ? s.length() : separator + 1;
+        int maxLength = ConversionBuffer.maxDecodedLength(s.length() - payloadStart);
+        byte[] buffer = ConversionBuffer.acquire(maxLength);
+        try {
+            int encryptedLength = ConversionBuffer.decodeBase64(s, payloadStart, buffer);
+            int decryptedLength = decrypt(buffer, 0, encryptedLength, buffer, decryptionFormat, keys);
+            decryptedValueCache.put(s, buffer, 0, decryptedLength);
+            return convertBytesToAttribute(buffer, 0, decryptedLength);
+        } finally {
+            ConversionBuffer.wipe(buffer, maxLength);
+        }
+    }
+
+    /**
+     * Binary column counterpart of {@link #convertToDatabaseColumn}. The encrypted bytes are stored as is behind the
+     * {@link CipherFormat#getDbPrefix()} and {@link #ENTITY_SEPARATOR}, skipping Base64 encoding altogether.
+     *
+     * @param x The model object that will be serialized and encrypted, for DB storage
+     * @return The bytes that will be stored in a binary (VARBINARY) DB column.
+     * @see BinaryEncryptedAttributeConverter
+     */
+    @SneakyThrows
+    public final byte[] convertToBinaryDatabaseColumn(X x) {
+        if (x == null) return null;
+        CipherFormat encryptionFormat = getEncryptionFormat(x);
+        FormatKeys keys = encryptionFormat.keys();
+        byte[] encryptedEntity = encrypt(convertAttributeToBytes(x), encryptionFormat, keys);
+        if (log.isDebugEnabled()) {
+            log.debug("Encrypted entity with logic {}, key version {}", encryptionFormat.name(), keys.version);
+        }
+
+        byte[] prefix = keys.dbPrefixBytes;
+        byte[] dbValue = new byte[prefix.length + 1 + encryptedEntity.length];
+        System.arraycopy(prefix, 0, dbValue, 0, prefix.length);
+        dbValue[prefix.length] = (byte) ENTITY_SEPARATOR_CHAR;
+        System.arraycopy(encryptedEntity, 0, dbValue, prefix.length + 1, encryptedEntity.length);
+        return dbValue;
+    }
+
+    /**
+     * Binary column counterpart of {@link #convertToEntityAttribute}.
+     *
+     * @param dbValue The bytes fetched from a binary DB column, written by {@link #convertToBinaryDatabaseColumn}
+     * @return decrypted and deserialized Object of type X.
+     */
+    @SneakyThrows
+    public final X convertBinaryToEntityAttribute(byte[] dbValue) {
+        if (dbValue == null) return null;
+        int separator = indexOf(dbValue, (byte) ENTITY_SEPARATOR_CHAR);
+        int prefixEnd = separator < 0 ? dbValue.length : separator;
+        int formatEnd = formatEnd(dbValue, prefixEnd);
+        CipherFormat decryptionFormat = CipherFormat.getByDbPrefix(dbValue, formatEnd);
+        if (decryptionFormat == null) {
+            throw new UnknownFormatConversionException("Unknown Entity encryption format : "
+                    + new String(dbValue, 0, prefixEnd, StandardCharsets.US_ASCII));
+        }
+        FormatKeys keys = decryptionFormat.keys(keyVersion(dbValue, formatEnd, prefixEnd));
+        if (log.isDebugEnabled()) {
+            log.debug("Decrypting entity with logic {}, key version {}", decryptionFormat.name(), keys.version);
+        }
+
+        int payloadStart = separator < 0 ? dbValue.length : separator + 1;
+        int encryptedLength = dbValue.length - payloadStart;
+        byte[] buffer = ConversionBuffer.acquire(encryptedLength);
+        try {
+            int decryptedLength = decrypt(dbValue, payloadStart, encryptedLength, buffer, decryptionFormat, keys);
+            return convertBytesToAttribute(buffer, 0, decryptedLength);
+        } finally {
+            // decrypted values are never longer than encrypted ones
+            ConversionBuffer.wipe(buffer, encryptedLength);
+        }
+    }
+
+    /**
+     * Batch counterpart of {@link #convertToDatabaseColumn}, for bulk loaders that write many values at once instead
+     * of going through the per-attribute JPA callback. Large batches are encrypted in parallel, each worker thread
+     * with its own {@link Cipher} instances.
+     *
+     * @param attributes The model objects to be stored, nulls included
+     * @return The DB column values, in the order of the given attributes.
+     */
+    public final List<String> convertAllToDatabaseColumn(@NonNull List<? extends X> attributes) {
+        return ParallelConversion.convertAll(attributes, this::convertToDatabaseColumn);
+    }
+
+    /**
+     * Array flavour of {@link #convertAllToDatabaseColumn(List)}.
+     */
+    public final String[] convertAllToDatabaseColumn(@NonNull X[] attributes) {
+        return convertAllToDatabaseColumn(Arrays.asList(attributes)).toArray(new String[0]);
+    }
+
+    /**
+     * Batch counterpart of {@link #convertToEntityAttribute}, for export jobs that read many values at once. Large
+     * batches are decrypted in parallel, each worker thread with its own {@link Cipher} instances.
+     *
+     * @param dbValues The strings fetched from DB column, nulls included
+     * @return The decrypted and deserialized objects, in the order of the given DB values.
+     */
+    public final List<X> convertAllToEntityAttribute(@NonNull List<String> dbValues) {
+        return ParallelConversion.convertAll(dbValues, this::convertToEntityAttribute);
+    }
+
+    /**
+     * Array flavour of {@link #convertAllToEntityAttribute(List)}.
+     */
+    public final List<X> convertAllToEntityAttribute(@NonNull String[] dbValues) {
+        return convertAllToEntityAttribute(Arrays.asList(dbValues));
+    }
+
+    /**
+     * Re-encrypts a DB value written in any known {@link CipherFormat} with the target format, without deserializing
+     * it into the attribute type. This is how existing rows are migrated after the format returned by
+     * {@link #getEncryptionFormat} changes, or after the keys of a format are rotated.
+     *
+     * @param dbValue      The encrypted string fetched from DB column
+     * @param targetFormat The format to re-encrypt the value with, using the latest version of its key
+     * @return The DB value in the target format. Same as dbValue if it is null or already in the target format and
+     * key version.
+     */
+    @SneakyThrows
+    public static String reEncrypt(String dbValue, CipherFormat targetFormat) {
+        if (dbValue == null) return null;
+        int separator = dbValue.indexOf(ENTITY_SEPARATOR_CHAR);
+        int prefixEnd = separator < 0 ? dbValue.length() : separator;
+        int formatEnd = formatEnd(dbValue, prefixEnd);
+        CipherFormat decryptionFormat = getDecryptionFormat(dbValue, formatEnd);
+        FormatKeys decryptionKeys = decryptionFormat.keys(keyVersion(dbValue, formatEnd, prefixEnd));
+        FormatKeys targetKeys = targetFormat.keys();
+        if (decryptionKeys == targetKeys) return dbValue;
+
+        int payloadStart = separator < 0 ? dbValue.length() : separator + 1;
+        int maxLength = ConversionBuffer.maxDecodedLength(dbValue.length() - payloadStart);
+        byte[] buffer = ConversionBuffer.acquire(maxLength);
+        byte[] plainText;
+        try {
+            int encryptedLength = ConversionBuffer.decodeBase64(dbValue, payloadStart, buffer);
+            int decryptedLength = decrypt(buffer, 0, encryptedLength, buffer, decryptionFormat, decryptionKeys);
+            plainText = Arrays.copyOf(buffer, decryptedLength);
+        } finally {
+            ConversionBuffer.wipe(buffer, maxLength);
+        }
+        try {
+            byte[] reEncrypted = encode(encrypt(plainText, targetFormat, targetKeys));
+            return targetKeys.dbPrefix + ENTITY_SEPARATOR + new String(reEncrypted, StandardCharsets.UTF_8);
+        } finally {
+            ConversionBuffer.wipe(plainText, plainText.length);
+        }
+    }
+
+    /**
+     * Batch counterpart of {@link #reEncrypt(String, CipherFormat)}, re-encrypting large batches in parallel.
+     *
+     * @param dbValues     The encrypted strings fetched from DB column
+     * @param targetFormat The format to re-encrypt the values with
+     * @return The DB values in the target format, in the order of the given DB values.
+     */
+    public static List<String> reEncryptAll(@NonNull List<String> dbValues, CipherFormat targetFormat) {
+        return ParallelConversion.convertAll(dbValues, dbValue -> reEncrypt(dbValue, targetFormat));
+    }
+
+    private static int indexOf(byte[] bytes, byte b) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -219,24 +698,76 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
      * @param x the entity to be encrypted
      * @return CipherFormat
      */
-    private CipherFormat getEncryptionFormat(X x) {
+    protected CipherFormat getEncryptionFormat(X x) {
         return CipherFormat.getDefault();
     }
 
-    private CipherFormat getDecryptionFormat(String dbPrefix) {
-        CipherFormat encryptionFormat = CipherFormat.getByDbPrefix(dbPrefix);
+    private static CipherFormat getDecryptionFormat(String dbValue, int formatEnd) {
+        CipherFormat encryptionFormat = CipherFormat.getByDbPrefix(dbValue, formatEnd);
         if (encryptionFormat == null) {
-            throw new UnknownFormatConversionException("Unknown Entity encryption format : " + dbPrefix);
+            throw new UnknownFormatConversionException("Unknown Entity encryption format : " + dbValue.substring(0, formatEnd));
         }
         return encryptionFormat;
     }
 
-    private byte[] encode(byte[] plainEntityStringValue) {
-        return Base64Utils.encode(plainEntityStringValue);
+    /**
+     * @return Index in dbValue right after the {@link CipherFormat#getDbPrefix()}, before the key version if any.
+     */
+    private static int formatEnd(String dbValue, int prefixEnd) {
+        int versionSeparator = dbValue.lastIndexOf(KEY_VERSION_SEPARATOR_CHAR, prefixEnd - 1);
+        return versionSeparator < 0 ? prefixEnd : versionSeparator;
+    }
+
+    private static int formatEnd(byte[] dbValue, int prefixEnd) {
+        for (int i = prefixEnd - 1; i >= 0; i--) {
+            if (dbValue[i] == KEY_VERSION_SEPARATOR_CHAR) {
+                return i;
+            }
+        }
+        return prefixEnd;
+    }
+
+    /**
+     * Parses the key version between the format and the end of the prefix, without cutting it out of the DB value.
+     *
+     * @return The key version, 0 if the prefix carries none.
+     */
+    private static int keyVersion(String dbValue, int formatEnd, int prefixEnd) {
+        int version = 0;
+        for (int i = formatEnd + 1; i < prefixEnd; i++) {
+            version = nextVersionDigit(version, dbValue.charAt(i));
+            if (version < 0) {
+                throw new UnknownFormatConversionException("Unknown key version of Entity encryption format : "
+                        + dbValue.substring(0, prefixEnd));
+            }
+        }
+        return version;
+    }
+
+    private static int keyVersion(byte[] dbValue, int formatEnd, int prefixEnd) {
+        int version = 0;
+        for (int i = formatEnd + 1; i < prefixEnd; i++) {
+            version = nextVersionDigit(version, (char) dbValue[i]);
+            if (version < 0) {
+                throw new UnknownFormatConversionException("Unknown key version of Entity encryption format : "
+                        + new String(dbValue, 0, prefixEnd, StandardCharsets.US_ASCII));
+            }
+        }
+        return version;
+    }
+
+    /**
+     * @return The version followed by the given digit, or -1 if it is not a digit or the version would overflow.
+     */
+    private static int nextVersionDigit(int version, char digit) {
+        if (digit < '0' || digit > '9' || version > (Integer.MAX_VALUE - 9) / 10) {
+            return -1;
+        }
+        return version * 10 + (digit - '0');
     }
 
-    private byte[] decode(String encodedDbValue) {
-        return Base64Utils.decodeFromString(encodedDbValue);
+    private static byte[] encode(byte[] plainEntityStringValue) {
+        return Base64Utils.encode(plainEntityStringValue);
     }
 
     /**
@@ -244,62 +775,134 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
      *
      * @param painTextEntity The byte array representation of entity, obtained by
      *                       {@link EncryptedAttributeConverter#convertAttributeToBytes}
-     * @param algo           The cipher algo and key to be used to encrypt this array
+     * @param algo           The cipher algo to be used to encrypt this array
+     * @param keys           The version of the algo's key to encrypt with
      * @return Encrypted byte array
      * @throws IllegalBlockSizeException when byte array block size is not suitable for encryption by given algo
      * @throws IllegalArgumentException  when the Key or IV specs are not in-line with the Cipher algorithm.
      */
-    private byte[] encrypt(byte[] painTextEntity, CipherFormat algo) throws IllegalBlockSizeException {
-        log.trace("Encrypting entity with {} algo", algo.name());
+    private static byte[] encrypt(byte[] painTextEntity, CipherFormat algo, FormatKeys keys)
+            throws IllegalBlockSizeException {
+        if (log.isTraceEnabled()) {
+            log.trace("Encrypting entity with {} algo", algo.name());
+        }
+        long startNanos = System.nanoTime();
+        try {
+            byte[] encryptedEntity = doEncrypt(painTextEntity, algo, keys);
+            metrics.recordEncryption(algo, painTextEntity.length, startNanos);
+            return encryptedEntity;
+        } catch (IllegalBlockSizeException | RuntimeException e) {
+            metrics.recordFailure(algo, ConversionMetrics.ENCRYPT, e);
+            throw e;
+        }
+    }
 
+    private static byte[] doEncrypt(byte[] painTextEntity, CipherFormat algo, FormatKeys keys)
+            throws IllegalBlockSizeException {
         try {
-            Cipher cipher = algo.getCipherName() == null ? new NullCipher() : Cipher.getInstance(algo.getCipherName());
-            if (algo.getIv().isPresent()) {
-                cipher.init(Cipher.ENCRYPT_MODE, algo.getKey(), algo.getIv().get());
-            } else {
-                cipher.init(Cipher.ENCRYPT_MODE, algo.getKey());
+            if (algo.getNonceLength() > 0) {
+                return encryptWithNonce(painTextEntity, algo, keys);
+            }
+            Cipher cipher = cipherPool.acquire(algo, keys.key, keys.iv, Cipher.ENCRYPT_MODE);
+            try {
+                return cipher.doFinal(painTextEntity);
+            } catch (GeneralSecurityException | RuntimeException e) {
+                cipherPool.invalidate(algo, Cipher.ENCRYPT_MODE);
+                throw e;
             }
-            return cipher.doFinal(painTextEntity);
         } catch (NoSuchAlgorithmException e) {
             log.error("JVM environment do no support expected algorithm : " + algo, e);
             throw new IllegalArgumentException(e);
-        } catch (NoSuchPaddingException | InvalidKeyException | BadPaddingException e) {
-            log.error("JVM environment do no support key ({}) or block/padding ({}): ", algo.getKey(), algo.getCipherName(), e);
+        } catch (NoSuchPaddingException | InvalidKeyException | BadPaddingException | ShortBufferException e) {
+            log.error("JVM environment do no support key (version {}) or block/padding ({}): ", keys.version, algo.getCipherName(), e);
             throw new IllegalArgumentException(e);
         } catch (InvalidAlgorithmParameterException e) {
-            log.error("IV spec ({}) for Cipher Algo ({}) is not correct.", algo.getIv(), algo.name(), e);
+            log.error("IV spec (version {}) for Cipher Algo ({}) is not correct.", keys.version, algo.name(), e);
             throw new IllegalArgumentException(e);
         }
     }
 
     /**
-     * Helper method to decrypt given encryptedDbValue byte array using the given {@link CipherFormat}
+     * Encrypts with a fresh random nonce, written in front of the cipher text. Authenticated modes like GCM refuse to
+     * encrypt twice with the same key and nonce, so the pooled {@link Cipher} is re-initialized for every value.
+     */
+    private static byte[] encryptWithNonce(byte[] painTextEntity, CipherFormat algo, FormatKeys keys)
+            throws NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException,
+            InvalidAlgorithmParameterException, ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        int nonceLength = algo.getNonceLength();
+        byte[] nonce = new byte[nonceLength];
+        nonceRandom.nextBytes(nonce);
+        Cipher cipher = cipherPool.acquire(algo, keys.key, Cipher.ENCRYPT_MODE, new GCMParameterSpec(GCM_TAG_BITS, nonce));
+        try {
+            byte[] encryptedEntity = new byte[nonceLength + cipher.getOutputSize(painTextEntity.length)];
+            System.arraycopy(nonce, 0, encryptedEntity, 0, nonceLength);
+            cipher.doFinal(painTextEntity, 0, painTextEntity.length, encryptedEntity, nonceLength);
+            return encryptedEntity;
+        } catch (GeneralSecurityException | RuntimeException e) {
+            cipherPool.invalidate(algo, Cipher.ENCRYPT_MODE);
+            throw e;
+        }
+    }
+
+    /**
+     * Helper method to decrypt a region of the given byte array using the given {@link CipherFormat}. Input and output
+     * may be the same array, in which case the value is decrypted in place.
      *
-     * @param encryptedDbValue The value to de decrypted
-     * @param algo             The cipher algo and key to be used to decrypt this entity
-     * @return Decrypted byte array
+     * @param input       Holds the value to de decrypted
+     * @param inputOffset Index of the first encrypted byte in input
+     * @param inputLength Number of encrypted bytes in input
+     * @param output      Buffer that receives the decrypted value from its start
+     * @param algo        The cipher algo to be used to decrypt this entity
+     * @param keys        The version of the algo's key the entity was encrypted with
+     * @return Number of decrypted bytes written to output
      * @throws IllegalBlockSizeException when byte array block size is not suitable for decryption by given algo
      *                                   and key size.
      * @throws IllegalArgumentException  when the Key or IV specs are not in-line with the Cipher algorithm.
      */
-    private byte[] decrypt(byte[] encryptedDbValue, CipherFormat algo) throws IllegalBlockSizeException {
-        log.trace("Decrypting entity with {} algo", algo.name());
+    private static int decrypt(byte[] input, int inputOffset, int inputLength, byte[] output, CipherFormat algo,
+                               FormatKeys keys) throws IllegalBlockSizeException {
+        if (log.isTraceEnabled()) {
+            log.trace("Decrypting entity with {} algo", algo.name());
+        }
+        long startNanos = System.nanoTime();
+        try {
+            int decryptedLength = doDecrypt(input, inputOffset, inputLength, output, algo, keys);
+            metrics.recordDecryption(algo, inputLength, startNanos);
+            return decryptedLength;
+        } catch (IllegalBlockSizeException | RuntimeException e) {
+            metrics.recordFailure(algo, ConversionMetrics.DECRYPT, e);
+            throw e;
+        }
+    }
+
+    private static int doDecrypt(byte[] input, int inputOffset, int inputLength, byte[] output, CipherFormat algo,
+                                 FormatKeys keys) throws IllegalBlockSizeException {
         try {
-            Cipher cipher = algo.getCipherName() == null ? new NullCipher() : Cipher.getInstance(algo.getCipherName());
-            if (algo.getIv().isPresent()) {
-                cipher.init(Cipher.DECRYPT_MODE, algo.getKey(), algo.getIv().get());
+            int nonceLength = algo.getNonceLength();
+            Cipher cipher;
+            if (nonceLength > 0) {
+                if (inputLength < nonceLength) {
+                    throw new IllegalBlockSizeException("Encrypted value is shorter than its nonce, for " + algo.name());
+                }
+                cipher = cipherPool.acquire(algo, keys.key, Cipher.DECRYPT_MODE, new GCMParameterSpec(GCM_TAG_BITS, input, inputOffset, nonceLength));
             } else {
-                cipher.init(Cipher.DECRYPT_MODE, algo.getKey());
+                cipher = cipherPool.acquire(algo, keys.key, keys.iv, Cipher.DECRYPT_MODE);
+            }
+            try {
+                // copy-safe, so input and output can share the same array
+                return cipher.doFinal(input, inputOffset + nonceLength, inputLength - nonceLength, output, 0);
+            } catch (GeneralSecurityException | RuntimeException e) {
+                cipherPool.invalidate(algo, Cipher.DECRYPT_MODE);
+                throw e;
             }
-            return cipher.doFinal(encryptedDbValue);
         } catch (NoSuchAlgorithmException e) {
             log.error("JVM environment do no support expected algorithm : " + algo, e);
             throw new IllegalArgumentException(e);
-        } catch (NoSuchPaddingException | InvalidKeyException | BadPaddingException e) {
-            log.error("JVM environment do no support key ({}) or padding ({}): ", algo.getKey(), algo.getCipherName(), e);
+        } catch (NoSuchPaddingException | InvalidKeyException | BadPaddingException | ShortBufferException e) {
+            log.error("JVM environment do no support key (version {}) or padding ({}): ", keys.version, algo.getCipherName(), e);
             throw new IllegalArgumentException(e);
         } catch (InvalidAlgorithmParameterException e) {
-            log.error("IV spec ({}) for Cipher Algo ({}) is not correct.", algo.getIv(), algo.name(), e);
+            log.error("IV spec (version {}) for Cipher Algo ({}) is not correct.", keys.version, algo.name(), e);
             throw new IllegalArgumentException(e);
         }
     }
@@ -316,6 +919,20 @@ public abstract class EncryptedAttributeConverter<X> implements AttributeConvert
      */
     public abstract X convertBytesToAttribute(@NonNull byte[] decryptedValueBytes);
 
+    /**
+     * Same as {@link #convertBytesToAttribute(byte[])}, but reads the value from a region of a shared buffer. The
+     * buffer is re-used for the next conversion, so implementations must copy what they keep from it. Subclasses
+     * should override this to avoid the copy of the region done by this default implementation.
+     *
+     * @param buffer - Holds the byte array representation fetched and decrypted from DB.
+     * @param offset - Index of the first byte of the value in buffer
+     * @param length - Number of bytes of the value in buffer
+     * @return The deserialized and converted value from the serialized byte buffer.
+     */
+    public X convertBytesToAttribute(@NonNull byte[] buffer, int offset, int length) {
+        return convertBytesToAttribute(Arrays.copyOfRange(buffer, offset, offset + length));
+    }
+
     /**
      * This method serializes the object of type X in to a byte [] buffer. This byte array will then be encrypted and
      * stored safely in DB.
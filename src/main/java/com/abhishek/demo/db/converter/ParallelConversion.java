@@ -0,0 +1,93 @@
+package com.abhishek.demo.db.converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Applies an attribute conversion to every value of a batch, spreading large batches over a dedicated
+ * {@link ForkJoinPool}. Each worker thread gets its own {@link javax.crypto.Cipher} instances from the thread confined
+ * {@link CipherPool}, and its own {@link ConversionBuffer}, so workers never contend on crypto state.
+ *
+ * @implNote Batches are split in contiguous index ranges, each converted into its own slots of a shared result array,
+ * so the output order is the input order without any merge step. Small batches are converted on the calling thread,
+ * where the hand-off to the pool would cost more than the conversions themselves.
+ */
+final class ParallelConversion {
+
+    /**
+     * Batches smaller than this are converted on the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 512;
+
+    /**
+     * Number of values a worker converts without splitting its range any further.
+     */
+    private static final int LEAF_SIZE = 128;
+
+    private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("encrypted-conversion-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+
+    private ParallelConversion() {
+    }
+
+    /**
+     * @param values     The batch to convert, which may contain nulls if the conversion accepts them
+     * @param conversion The conversion of a single value
+     * @return The converted values, in the order of the input values.
+     */
+    static <T, R> List<R> convertAll(List<? extends T> values, Function<? super T, ? extends R> conversion) {
+        List<? extends T> input = values instanceof RandomAccess ? values : new ArrayList<>(values);
+        Object[] results = new Object[input.size()];
+        if (input.size() < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = conversion.apply(input.get(i));
+            }
+        } else {
+            pool.invoke(new ConversionTask<>(input, results, conversion, 0, results.length));
+        }
+        @SuppressWarnings("unchecked")
+        List<R> converted = (List<R>) Arrays.asList(results);
+        return converted;
+    }
+
+    private static final class ConversionTask<T, R> extends RecursiveAction {
+        private final List<? extends T> values;
+        private final Object[] results;
+        private final Function<? super T, ? extends R> conversion;
+        private final int from;
+        private final int to;
+
+        private ConversionTask(List<? extends T> values, Object[] results, Function<? super T, ? extends R> conversion,
+                               int from, int to) {
+            this.values = values;
+            this.results = results;
+            this.conversion = conversion;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    results[i] = conversion.apply(values.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ConversionTask<>(values, results, conversion, from, middle),
+                    new ConversionTask<>(values, results, conversion, middle, to));
+        }
+    }
+}
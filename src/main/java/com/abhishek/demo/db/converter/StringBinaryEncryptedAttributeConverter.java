@@ -0,0 +1,14 @@
+package com.abhishek.demo.db.converter;
+
+import javax.persistence.Converter;
+
+/**
+ * An JPA attribute converter class that encrypts String attributes into a binary (VARBINARY) column.
+ */
+@Converter
+public class StringBinaryEncryptedAttributeConverter extends BinaryEncryptedAttributeConverter<String> {
+
+    public StringBinaryEncryptedAttributeConverter() {
+        super(new StringEncryptedAttributeConverter());
+    }
+}
@@ -14,6 +14,11 @@ public class StringEncryptedAttributeConverter extends EncryptedAttributeConvert
         return new String(decryptedValueBytes, StandardCharsets.UTF_8);
     }
 
+    @Override
+    public String convertBytesToAttribute(byte[] buffer, int offset, int length) {
+        return new String(buffer, offset, length, StandardCharsets.UTF_8);
+    }
+
     @Override
     public byte[] convertAttributeToBytes(String originalTypedAttribute) {
         return originalTypedAttribute.getBytes(StandardCharsets.UTF_8);
@@ -0,0 +1,28 @@
+package com.abhishek.demo.db.event;
+
+/**
+ * Receives the entities written by committed transactions, for in-memory structures derived from them, such as
+ * search indexes, to follow the DB incrementally. Beans of this type are registered by {@link EntityEventBridge}.
+ * <p>
+ * Calls are made on the committing thread, right after the commit, so they should be quick. Entities of rolled back
+ * transactions are never seen.
+ */
+public interface EntityChangeListener {
+
+    /**
+     * @param entity An entity inserted or updated by the transaction, of any type
+     */
+    void onSaved(Object entity);
+
+    /**
+     * @param entity An entity deleted by the transaction, of any type
+     */
+    void onDeleted(Object entity);
+
+    /**
+     * Called once all the entities of a committed transaction were handed to {@link #onSaved} and {@link #onDeleted},
+     * e.g. to make them visible at once rather than one by one.
+     */
+    default void onCommitted() {
+    }
+}
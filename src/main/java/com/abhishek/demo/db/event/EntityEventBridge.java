@@ -0,0 +1,114 @@
+package com.abhishek.demo.db.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hands the entities written by each committed transaction to all {@link EntityChangeListener} beans, through the
+ * post-commit insert, update and delete events of Hibernate, then calls {@link EntityChangeListener#onCommitted()} once
+ * per transaction.
+ * <p>
+ * Failing listeners are logged and skipped: the transaction is already committed, and other listeners still get the
+ * change. Writes made with plain SQL, bypassing the session, are not seen.
+ */
+@Slf4j
+@Component
+public class EntityEventBridge implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired(required = false)
+    private List<EntityChangeListener> listeners = Collections.emptyList();
+
+    /**
+     * Session whose transaction completion, on this thread, already has {@link EntityChangeListener#onCommitted()} due.
+     */
+    private final ThreadLocal<EventSource> committingSession = new ThreadLocal<>();
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        log.info("Entity changes are published to {}", listeners);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event, listener -> listener.onSaved(event.getEntity()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event, listener -> listener.onSaved(event.getEntity()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event, listener -> listener.onDeleted(event.getEntity()));
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    private void publish(AbstractEvent event, Consumer<EntityChangeListener> call) {
+        EventSource session = event.getSession();
+        if (committingSession.get() != session) {
+            // post-commit events are themselves run from the after completion processes of the session, which are
+            // polled until none is left, so this one runs once all the entities of the transaction were published
+            committingSession.set(session);
+            session.getActionQueue().registerProcess((success, s) -> {
+                committingSession.remove();
+                publish(EntityChangeListener::onCommitted);
+            });
+        }
+        publish(call);
+    }
+
+    private void publish(Consumer<EntityChangeListener> call) {
+        for (EntityChangeListener listener : listeners) {
+            try {
+                call.accept(listener);
+            } catch (RuntimeException e) {
+                log.error("Entity change listener {} failed", listener, e);
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.abhishek.demo.db.model;
 
+import com.abhishek.demo.db.converter.BlindIndex;
+import com.abhishek.demo.db.converter.BlindIndexer;
 import com.abhishek.demo.db.converter.StringEncryptedAttributeConverter;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -13,7 +17,11 @@ import java.util.Set;
 @AllArgsConstructor
 @Getter
 @Entity(name = "Author")
-@Table(name = "author")
+// not @Cacheable, as the cache would hold the account number in plain text, see SecondLevelCacheConfig
+@Table(name = "author",
+        indexes = {
+                @Index(columnList = "account_number_bidx", name = "account_number_bidx_idx")
+        })
 public class Author extends BaseEntity {
 
     private String firstName;
@@ -25,6 +33,13 @@ public class Author extends BaseEntity {
     @Convert(converter = StringEncryptedAttributeConverter.class)
     private String accountNumber;
 
+    /**
+     * Searchable stand-in for the encrypted {@link #accountNumber}, see {@link BlindIndex}
+     */
+    @BlindIndex("accountNumber")
+    @Column(name = "account_number_bidx", length = BlindIndexer.INDEX_LENGTH)
+    private String accountNumberBlindIndex;
+
 //    @Transient
 //    private transient Date age;
 //
@@ -32,6 +47,10 @@ public class Author extends BaseEntity {
 //        return new Date(new Date().compareTo(age));
 //    }
 
+    /**
+     * Cached as the ids of the books, which are then read from the region of {@link Book}.
+     */
     @OneToMany(mappedBy = "author", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author-books")
     Set<Book> books;
 }
@@ -1,16 +1,22 @@
 package com.abhishek.demo.db.model;
 
+import com.abhishek.demo.db.converter.BlindIndexListener;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
-import java.util.Objects;
+import java.util.UUID;
 
 @Slf4j
 @ToString
@@ -18,9 +24,28 @@ import java.util.Objects;
 @NoArgsConstructor
 @AllArgsConstructor
 @MappedSuperclass
+@EntityListeners(BlindIndexListener.class)
 public abstract class BaseEntity {
+
+    /**
+     * Number of ids fetched from a sequence at once.
+     */
+    public static final int ID_BLOCK_SIZE = 50;
+
+    /**
+     * Taken from a sequence per table, in blocks of {@link #ID_BLOCK_SIZE} through the pooled-lo optimizer, so ids
+     * are known before insert and Hibernate can batch the inserts, unlike with IDENTITY columns. Sequences start
+     * above the ids used by data.sql.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_sequence")
+    @GenericGenerator(name = "pooled_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.CONFIG_PREFER_SEQUENCE_PER_ENTITY, value = "true"),
+                    @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_BLOCK_SIZE),
+                    @Parameter(name = SequenceStyleGenerator.INITIAL_PARAM, value = "1000")
+            })
     private Long id;
 
     @Version
@@ -48,32 +73,52 @@ public abstract class BaseEntity {
 //    }
 
     /**
-     * Uniquely identifies a row of database table. All extending subclasses will have different hash codes even
-     * for same 'ID' field in DB. Even if multiple entity objects are created in application context, after independently
-     * fetching them from same/different entity managers, the hashCode will remain same throughout the application.
-     * Modification to an attribute does not change the hash code for that entity instance.
-     *
-     * @return A unique integer representation of the entity object, consistent throughout a single application run.
+     * Identity of the entity, assigned by the application rather than by the DB, so that it is known and stays the same
+     * from the creation of the entity on, unlike {@link #id}, which is only assigned on persist. Read through
+     * {@link #getUuid()}, as it is only assigned once needed.
+     */
+    @Type(type = "uuid-binary")
+    @Column(name = "uuid", length = 16, nullable = false, updatable = false)
+    private UUID uuid;
+
+    /**
+     * @return The identity of the entity, assigned on first call for a new entity.
+     */
+    public UUID getUuid() {
+        if (uuid == null) {
+            uuid = UUID.randomUUID();
+        }
+        return uuid;
+    }
+
+    @PrePersist
+    void assignUuid() {
+        getUuid();
+    }
+
+    /**
+     * Hash of the {@link #getUuid() identity} of the entity, spread evenly over new entities, which have no id yet,
+     * and the same before and after they are persisted. Modification to an attribute does not change the hash code
+     * for that entity instance.
      */
     @Override
     public int hashCode() {
-        return Objects.hashCode(id) +           // same for new non-persisted entity instances. Different once persisted
-                Objects.hashCode(getClass());   // different for each subclass of this entity
+        return getUuid().hashCode();
     }
 
     /**
-     * Performs a comparison between this and that objects and return true if the instance state is same for both
-     * the object.
+     * Entities are equal when they are of the same persistent class and have the same {@link #getUuid() identity},
+     * whatever their state. Hibernate proxies are compared by the class and identity of the entity they stand for,
+     * which initializes them.
+     *
      * @param that - the object to be compared with this one
-     * @return - true, if
+     * @return - true, if both are the same entity
      */
     @Override
     public boolean equals(Object that) {
-        if (null == that) return false;      // NPE check
-        if (super.equals(that)) return true; // reflexive
-        if (getClass() != that.getClass()) return false;
-        if (hashCode() != that.hashCode()) return false;
-        BaseEntity other = (BaseEntity) that;
-        return id.equals(other.getId()) && version.equals(other.getVersion());
+        if (this == that) return true;
+        if (!(that instanceof BaseEntity)) return false;
+        if (Hibernate.getClass(this) != Hibernate.getClass(that)) return false;
+        return getUuid().equals(((BaseEntity) that).getUuid());
     }
 }
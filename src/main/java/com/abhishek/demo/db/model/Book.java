@@ -1,7 +1,10 @@
 package com.abhishek.demo.db.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 
@@ -13,6 +16,9 @@ import javax.persistence.*;
 @Setter
 @Builder
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
+@NaturalIdCache(region = "book-isbn")
 @Table(name = "book",
         indexes = {
                 @Index(columnList = "name", name = "name_idx")
@@ -0,0 +1,27 @@
+package com.abhishek.demo.db.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Read-only R2DBC mapping of the {@code book} table, written through the JPA {@link Book} entity only.
+ */
+@Getter
+@NoArgsConstructor
+@Table("book")
+public class BookRow {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    @Column("isbn")
+    private String isbn;
+
+    @Column("author_id")
+    private Long authorId;
+}
@@ -0,0 +1,48 @@
+package com.abhishek.demo.db.model;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Progress of a re-encryption job over one encrypted column, so that the job can resume where it stopped after a
+ * restart. All rows with an id up to {@link #lastId} are already in the {@link #targetFormat}, encrypted with the key
+ * version of {@link #targetDbPrefix}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "re_encryption_checkpoint")
+public class ReEncryptionCheckpoint {
+
+    /**
+     * Identifies the re-encrypted column, as table.column
+     */
+    @Id
+    private String jobName;
+
+    @Enumerated(EnumType.STRING)
+    private CipherFormat targetFormat;
+
+    /**
+     * {@link CipherFormat#getCurrentDbPrefix()} of the target format when the job started, so that the job starts over
+     * once the keys are rotated.
+     */
+    private String targetDbPrefix;
+
+    private Long lastId;
+
+    private Long rowsReEncrypted;
+
+    @UpdateTimestamp
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "modify_date")
+    private Date modifyDate;
+}
@@ -0,0 +1,22 @@
+package com.abhishek.demo.db.projections;
+
+import lombok.Value;
+
+/**
+ * Immutable {@link AuthorView}, built by JPQL constructor expressions, e.g.
+ * {@link com.abhishek.demo.db.repository.AuthorRepository#findAuthorsByFirstName}. Unlike an interface projection,
+ * it is a plain object: no proxy is created per row, and getters are read without reflection.
+ */
+@Value
+public class AuthorDto implements AuthorView {
+
+    /**
+     * Selected by the constructor expressions of {@link com.abhishek.demo.db.repository.AuthorRepository}.
+     */
+    public static final String SELECTION = "new com.abhishek.demo.db.projections.AuthorDto("
+            + "a.firstName, a.lastName, a.accountNumber)";
+
+    String firstName;
+    String lastName;
+    String accountNumber;
+}
@@ -0,0 +1,51 @@
+package com.abhishek.demo.db.projections;
+
+import com.abhishek.demo.db.converter.StringEncryptedAttributeConverter;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+
+/**
+ * A {@link BookView} read from a flat row of a book joined with its author, for R2DBC queries, which do not map
+ * associations. The account number is decrypted as the JPA converter would.
+ */
+@NoArgsConstructor
+public class BookAuthorRow implements BookView {
+
+    private static final StringEncryptedAttributeConverter ACCOUNT_NUMBER = new StringEncryptedAttributeConverter();
+
+    private Long id;
+    private String name;
+    private String isbn;
+    private Long authorId;
+    private String firstName;
+    private String lastName;
+    private String accountNumber;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getISBN() {
+        return isbn;
+    }
+
+    @Override
+    public AuthorView getAuthor() {
+        return authorId == null ? null
+                : new Author(firstName, lastName, ACCOUNT_NUMBER.convertToEntityAttribute(accountNumber));
+    }
+
+    @Value
+    private static class Author implements AuthorView {
+        String firstName;
+        String lastName;
+        String accountNumber;
+    }
+}
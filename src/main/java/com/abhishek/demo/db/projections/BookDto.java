@@ -0,0 +1,48 @@
+package com.abhishek.demo.db.projections;
+
+import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.model.Book;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Immutable {@link BookView}, built by the JPQL constructor expressions of
+ * {@link com.abhishek.demo.db.repository.BookRepository}, from a book left joined with its author. Unlike an
+ * interface projection, it is a plain object: no proxy is created per row, and getters are read without reflection,
+ * including while serialized to JSON.
+ */
+@Value
+@AllArgsConstructor
+public class BookDto implements BookView {
+
+    /**
+     * Selected by the constructor expressions of {@link com.abhishek.demo.db.repository.BookRepository}, in this order.
+     */
+    public static final String SELECTION = "new com.abhishek.demo.db.projections.BookDto("
+            + "b.id, b.name, b.ISBN, a.id, a.firstName, a.lastName, a.accountNumber)";
+
+    Long id;
+    String name;
+    String ISBN;
+    AuthorDto author;
+
+    /**
+     * Constructor of the JPQL expressions, from a flat row, as a constructor expression cannot nest another one.
+     *
+     * @param authorId Id of the author, null for a book without author
+     */
+    public BookDto(Long id, String name, String ISBN, Long authorId, String authorFirstName, String authorLastName,
+                   String authorAccountNumber) {
+        this(id, name, ISBN,
+                authorId == null ? null : new AuthorDto(authorFirstName, authorLastName, authorAccountNumber));
+    }
+
+    /**
+     * Copies the book and its author, which is loaded if lazy, so the entity must be attached.
+     */
+    public static BookDto of(Book book) {
+        Author author = book.getAuthor();
+        return new BookDto(book.getId(), book.getName(), book.getISBN(), author == null ? null
+                : new AuthorDto(author.getFirstName(), author.getLastName(), author.getAccountNumber()));
+    }
+}
@@ -4,6 +4,7 @@ import com.abhishek.demo.db.model.Author;
 
 
 public interface BookView {
+    Long getId();
     String getName();
     String getISBN();
     AuthorView getAuthor();
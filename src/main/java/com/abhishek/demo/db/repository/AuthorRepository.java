@@ -1,8 +1,13 @@
 package com.abhishek.demo.db.repository;
 
+import com.abhishek.demo.db.converter.BlindIndexer;
 import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.projections.AuthorDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public interface AuthorRepository extends JpaRepository<Author, Long> {
@@ -18,5 +23,36 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
      * @return List of projected objects from DB rows.
      */
     <T> List<T> findAllByFirstName(String firstName, Class<T> type);
-    <T> List<T> findAllByAccountNumber(String accountNumber, Class<T> type);
+
+    <T> List<T> findAllByAccountNumberBlindIndexIn(Collection<String> accountNumberBlindIndexes, Class<T> type);
+
+    /**
+     * Searches the encrypted account number through its blind index, as a single indexed lookup that matches rows
+     * of every {@link com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat} and key version.
+     * @param accountNumber - plain text query param
+     * @param type<T> - The Class type of projection to which the returned data will be mapped by persistence provider.
+     * @return List of projected objects from DB rows.
+     */
+    default <T> List<T> findAllByAccountNumber(String accountNumber, Class<T> type) {
+        List<String> indexes = BlindIndexer.indexesOf(accountNumber);
+        return indexes.isEmpty() ? Collections.emptyList() : findAllByAccountNumberBlindIndexIn(indexes, type);
+    }
+
+    /**
+     * Authors of the given first name, as {@link AuthorDto}s built by a constructor expression, the account number
+     * decrypted by the converter of {@link Author#getAccountNumber()}.
+     */
+    @Query("select " + AuthorDto.SELECTION + " from Author a where a.firstName = :firstName")
+    List<AuthorDto> findAuthorsByFirstName(String firstName);
+
+    @Query("select " + AuthorDto.SELECTION + " from Author a where a.accountNumberBlindIndex in :accountNumberBlindIndexes")
+    List<AuthorDto> findAuthorsByAccountNumberBlindIndexIn(Collection<String> accountNumberBlindIndexes);
+
+    /**
+     * As {@link #findAllByAccountNumber}, into {@link AuthorDto}s.
+     */
+    default List<AuthorDto> findAuthorsByAccountNumber(String accountNumber) {
+        List<String> indexes = BlindIndexer.indexesOf(accountNumber);
+        return indexes.isEmpty() ? Collections.emptyList() : findAuthorsByAccountNumberBlindIndexIn(indexes);
+    }
 }
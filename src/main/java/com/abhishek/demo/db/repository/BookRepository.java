@@ -1,24 +1,96 @@
 package com.abhishek.demo.db.repository;
 
+import com.abhishek.demo.db.projections.BookDto;
 import com.abhishek.demo.db.projections.BookView;
 import com.abhishek.demo.db.model.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.util.Streamable;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
+
+    /**
+     * Number of rows the JDBC driver fetches at once while streaming.
+     */
+    int STREAM_FETCH_SIZE = 500;
+
     Optional<Book> findByName(String name);
     Streamable<Book> findByNameContaining(String name);
 //    List<BookWithAuthor> findBooks(Sort sort);
-    List<BookView> findByAuthor_FirstName(@NonNull String firstName);
 
-    List<BookView> findAllByIdGreaterThan(Long id);
+    /**
+     * All books, with their authors fetched in the same joined query rather than one lazy select per book.
+     */
+    @Override
+    @EntityGraph(attributePaths = "author")
+    List<Book> findAll();
+
+    /**
+     * Books and their authors are read in a single statement, into {@link BookDto}s built by a constructor expression
+     * rather than into proxies of {@link BookView}. An entity graph cannot be added here, as Hibernate refuses fetch
+     * joins on such queries.
+     */
+    @Query("select " + BookDto.SELECTION + " from Book b join b.author a where a.firstName = :firstName")
+    List<BookDto> findByAuthor_FirstName(@NonNull String firstName);
+
+    /**
+     * Single statement, as {@link #findByAuthor_FirstName}.
+     */
+    @Query("select " + BookDto.SELECTION + " from Book b left join b.author a where b.id > :id")
+    List<BookDto> findAllByIdGreaterThan(Long id);
+
+    /**
+     * As {@link #findAllByIdGreaterThan}, into the projection of the caller's choice, e.g. {@link BookView} to read
+     * interface projections.
+     */
+    <T> List<T> findByIdGreaterThan(Long id, Class<T> type);
+
+    /**
+     * Keyset pagination: the page of books right after the last one seen, as {@code id > :lastSeenId ORDER BY id
+     * LIMIT :n}. Unlike an OFFSET, the id range is found through the primary key index, however deep the page is.
+     * @param lastSeenId - id of the last book of the previous page, 0 for the first page
+     * @param limit - a {@link Pageable} of the first page, whose size is the LIMIT
+     * @return Books ordered by id.
+     */
+    @Query("select " + BookDto.SELECTION + " from Book b left join b.author a where b.id > :lastSeenId order by b.id")
+    List<BookDto> findByIdGreaterThanOrderByIdAsc(Long lastSeenId, Pageable limit);
+
+    @Query("select " + BookDto.SELECTION + " from Book b join b.author a"
+            + " where a.firstName = :firstName and b.id > :lastSeenId order by b.id")
+    List<BookDto> findByAuthor_FirstNameAndIdGreaterThanOrderByIdAsc(@NonNull String firstName, Long lastSeenId,
+                                                                     Pageable limit);
+
+    /**
+     * Books of the given ISBNs, with their authors, in one statement. The number of bind parameters of the IN list is
+     * padded to the next power of two ({@code hibernate.query.in_clause_parameter_padding}), so that lists of
+     * different sizes share a few cached statements.
+     */
+    @Query("select " + BookDto.SELECTION + " from Book b left join b.author a where b.ISBN in :isbns")
+    List<BookDto> findByISBNIn(Collection<String> isbns);
+
+    /**
+     * All books in id order, read from an open cursor {@link #STREAM_FETCH_SIZE} rows at a time rather than as a
+     * whole list. The stream must be consumed inside a transaction, and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true")
+    })
+    @Query("select " + BookDto.SELECTION + " from Book b left join b.author a order by b.id")
+    Stream<BookDto> streamAllByOrderByIdAsc();
 
 //    List<AuthorClassProjectionView> findByAuthor_LastName(@NonNull String lastName);
 
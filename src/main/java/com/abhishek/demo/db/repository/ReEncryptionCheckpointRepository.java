@@ -0,0 +1,7 @@
+package com.abhishek.demo.db.repository;
+
+import com.abhishek.demo.db.model.ReEncryptionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReEncryptionCheckpointRepository extends JpaRepository<ReEncryptionCheckpoint, String> {
+}
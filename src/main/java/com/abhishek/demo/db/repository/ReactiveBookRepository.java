@@ -0,0 +1,31 @@
+package com.abhishek.demo.db.repository;
+
+import com.abhishek.demo.db.model.BookRow;
+import com.abhishek.demo.db.projections.BookAuthorRow;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking reads of books over R2DBC, next to the JPA {@link BookRepository} through which books are written.
+ * Queries select books with their authors in one statement, as the {@link com.abhishek.demo.db.projections.BookView}
+ * queries of {@link BookRepository} do.
+ * <p>
+ * Read only: it declares its queries alone, rather than inheriting the save and delete methods of a CRUD repository.
+ */
+@Repository
+public interface ReactiveBookRepository extends org.springframework.data.repository.Repository<BookRow, Long> {
+
+    /**
+     * Keyset pagination, as {@link BookRepository#findByIdGreaterThanOrderByIdAsc}.
+     */
+    @Query("select b.id, b.name, b.isbn, b.author_id, a.first_name, a.last_name, a.account_number"
+            + " from book b left join author a on a.id = b.author_id"
+            + " where b.id > :lastSeenId order by b.id limit :limit")
+    Flux<BookAuthorRow> findPageAfter(long lastSeenId, int limit);
+
+    @Query("select b.id, b.name, b.isbn, b.author_id, a.first_name, a.last_name, a.account_number"
+            + " from book b join author a on a.id = b.author_id"
+            + " where a.first_name = :firstName and b.id > :lastSeenId order by b.id limit :limit")
+    Flux<BookAuthorRow> findPageForAuthorAfter(String firstName, long lastSeenId, int limit);
+}
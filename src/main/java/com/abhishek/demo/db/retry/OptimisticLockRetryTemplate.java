@@ -0,0 +1,130 @@
+package com.abhishek.demo.db.retry;
+
+import com.abhishek.demo.db.config.OptimisticLockRetryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs changes of versioned entities in a transaction, again in a new transaction when the commit conflicts with a
+ * concurrent change of the same rows, as {@link org.springframework.transaction.support.TransactionTemplate} would run
+ * them once. Each attempt must read the entities it changes, so that a retry applies the change to their latest
+ * state. Hot rows thereby absorb concurrent writers without being locked while read.
+ * <p>
+ * Retries wait a random time up to a bound that doubles with each retry, from
+ * {@link OptimisticLockRetryConfig#getInitialBackoff()} up to {@link OptimisticLockRetryConfig#getMaxBackoff()}, so
+ * that writers that conflicted once do not conflict again. After {@link OptimisticLockRetryConfig#getMaxAttempts()}
+ * the conflict is thrown.
+ * <ul>
+ *     <li>{@code db.optimistic-lock.conflicts}: conflicts, by entity type</li>
+ *     <li>{@code db.optimistic-lock.exhausted}: changes given up after the last attempt, by entity type</li>
+ *     <li>{@code db.optimistic-lock.attempts}: attempts per change that succeeded</li>
+ * </ul>
+ *
+ * @implNote Hibernate logs the failed JDBC batch of a conflicting update at ERROR before throwing, whether or not the
+ * change is retried afterwards. The debug log of each retry carries the same message, to tell retried conflicts apart
+ * from other batch failures.
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticLockRetryConfig config;
+    private final MeterRegistry registry;
+    private final DistributionSummary attempts;
+
+    public OptimisticLockRetryTemplate(TransactionTemplate transactionTemplate, OptimisticLockRetryConfig config,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.attempts = DistributionSummary.builder("db.optimistic-lock.attempts")
+                .description("Attempts of changes that succeeded, the first one included")
+                .register(registry);
+    }
+
+    /**
+     * @param entityType Type of the entities changed, by which conflicts are counted. Conflicts of updates sent as
+     *                   JDBC batches do not tell the type of the conflicting entity themselves.
+     * @param action     Reads and changes entities. Called once per attempt, each time in a new transaction.
+     * @return The result of the attempt that committed.
+     * @throws IllegalStateException             if called within a transaction, which the first conflict would roll
+     *                                           back as a whole.
+     * @throws OptimisticLockingFailureException if the last attempt conflicted too, or the wait for the next one was
+     *                                           interrupted.
+     */
+    public <T> T execute(Class<?> entityType, TransactionCallback<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Optimistic lock retries need a transaction per attempt,"
+                    + " and cannot run within a transaction");
+        }
+        int maxAttempts = config.getMaxAttempts();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transactionTemplate.execute(action);
+                attempts.record(attempt);
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                String entity = entityType(e, entityType);
+                Counter.builder("db.optimistic-lock.conflicts")
+                        .description("Commits that conflicted with a concurrent change of the same rows")
+                        .tag("entity", entity)
+                        .register(registry)
+                        .increment();
+                if (attempt >= maxAttempts) {
+                    Counter.builder("db.optimistic-lock.exhausted")
+                            .description("Changes given up as their last attempt conflicted too")
+                            .tag("entity", entity)
+                            .register(registry)
+                            .increment();
+                    log.warn("Giving up a change of {} after {} conflicting attempts", entity, attempt);
+                    throw e;
+                }
+                log.debug("Change of {} conflicted on attempt {}, retrying : {}", entity, attempt, e.getMessage());
+                if (!backOff(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits a random time up to the bound of the retry following the attempt, full jitter.
+     *
+     * @return false if interrupted.
+     */
+    private boolean backOff(int attempt) {
+        long maxNanos = config.getMaxBackoff().toNanos();
+        long boundNanos = Math.min(maxNanos, config.getInitialBackoff().toNanos() << Math.min(attempt - 1, 30));
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(boundNanos + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String entityType(OptimisticLockingFailureException e, Class<?> declaredType) {
+        if (e instanceof ObjectOptimisticLockingFailureException) {
+            String className = ((ObjectOptimisticLockingFailureException) e).getPersistentClassName();
+            if (className != null) {
+                return className.substring(className.lastIndexOf('.') + 1);
+            }
+        }
+        return declaredType.getSimpleName();
+    }
+}
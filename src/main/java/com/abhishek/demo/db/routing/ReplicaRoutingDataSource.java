@@ -0,0 +1,161 @@
+package com.abhishek.demo.db.routing;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions to replicas, in turn, and all others to the primary.
+ * <p>
+ * Must be wrapped in a {@link LazyConnectionDataSourceProxy}, as transaction managers get their connection before
+ * the transaction is marked read-only, while the proxy only gets it on the first statement.
+ * <p>
+ * Replicas are checked in background, and all are assumed up until the first check. Those failing a check or failing
+ * to give a connection are skipped until they pass a later check, and reads go to the primary while no replica is up.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    private volatile List<String> healthyReplicas;
+
+    /**
+     * @param primary             Pool of the primary
+     * @param replicas            Pools of the replicas, by name
+     * @param healthCheckInterval How often replicas are checked
+     */
+    public ReplicaRoutingDataSource(@NonNull DataSource primary, @NonNull Map<String, DataSource> replicas,
+                                    @NonNull Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.healthyReplicas = Collections.unmodifiableList(new ArrayList<>(replicas.keySet()));
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * Falls back to the primary when a replica fails to give a connection, and skips that replica from then on.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        DataSource target = getResolvedDataSources().get(key);
+        if (PRIMARY.equals(key)) {
+            return target.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            markDown((String) key, e);
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Validates a connection of every replica, and routes reads to those that passed until the next check.
+     */
+    public void checkHealth() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try (Connection connection = replica.getValue().getConnection()) {
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    healthy.add(replica.getKey());
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.debug("Health check of replica {} failed", replica.getKey(), e);
+            }
+        }
+        List<String> previous = healthyReplicas;
+        if (!healthy.equals(previous)) {
+            log.info("Healthy replicas changed from {} to {}", previous, healthy);
+        }
+        healthyReplicas = Collections.unmodifiableList(healthy);
+    }
+
+    public Set<String> getReplicaNames() {
+        return Collections.unmodifiableSet(replicas.keySet());
+    }
+
+    /**
+     * @return Names of the replicas reads are sent to, empty when reads go to the primary.
+     */
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    private synchronized void markDown(String replica, SQLException e) {
+        log.warn("Replica {} failed to give a connection, reading from the primary", replica, e);
+        List<String> healthy = new ArrayList<>(healthyReplicas);
+        healthy.remove(replica);
+        healthyReplicas = Collections.unmodifiableList(healthy);
+    }
+
+    /**
+     * Stops the health checks and closes all pools.
+     */
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Object dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof Closeable) {
+                try {
+                    ((Closeable) dataSource).close();
+                } catch (Exception e) {
+                    log.warn("Could not close {}", dataSource, e);
+                }
+            }
+        }
+    }
+}
@@ -1,31 +1,198 @@
 package com.abhishek.demo.http.controller;
 
-import com.abhishek.demo.db.projections.BookView;
 import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.projections.BookView;
+import com.abhishek.demo.http.model.BookPage;
+import com.abhishek.demo.http.model.BookRecord;
+import com.abhishek.demo.http.model.BookRecords;
+import com.abhishek.demo.http.model.BookSearchPage;
+import com.abhishek.demo.http.model.BulkIngestionResult;
+import com.abhishek.demo.http.model.TypeaheadResult;
+import com.abhishek.demo.service.BookIngestionService;
+import com.abhishek.demo.service.BookSearchService;
 import com.abhishek.demo.service.BookService;
+import com.abhishek.demo.service.ReactiveBookService;
+import com.abhishek.demo.service.TypeaheadService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
 import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 
 @RestController
 @RequestMapping("/")
 public class MainController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     BookService bookService;
 
+    @Autowired
+    ReactiveBookService reactiveBookService;
+
+    @Autowired
+    BookIngestionService bookIngestionService;
+
+    @Autowired
+    BookSearchService bookSearchService;
+
+    @Autowired
+    TypeaheadService typeaheadService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private static final String DEFAULT_PAGE_SIZE = "50";
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Lists books page by page, in id order. The first page is read without a token, and each following page with
+     * the {@link BookPage#getNext()} token of the previous one.
+     */
     @Transactional
     @RequestMapping(value = "/books", produces = "application/json")
-    private List<BookView> getAllBooks() {
-        return bookService.getAllBooks();
+    private BookPage getAllBooks(@RequestParam(required = false) String next,
+                                 @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = checkPageSize(limit);
+        return BookPage.of(bookService.getBooksAfter(lastSeenId(next), pageSize + 1), pageSize);
+    }
+
+    /**
+     * Dumps all books as newline delimited JSON, written one by one as they are read from the DB, for consumers that
+     * need the full listing rather than pages of it.
+     */
+    @RequestMapping(value = "/books", produces = NDJSON)
+    private ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                bookService.streamAllBooks(book -> {
+                    try {
+                        generator.writeObject(book);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.valueOf(NDJSON)).body(body);
     }
 
     @RequestMapping(value = "/books/author/{authorFirstName}", produces = "application/json")
-    private List<BookView> getAllBooksForAuthor(@PathVariable String authorFirstName) {
-        return bookService.getAllBooksForAuthor(authorFirstName);
+    private BookPage getAllBooksForAuthor(@PathVariable String authorFirstName,
+                                          @RequestParam(required = false) String next,
+                                          @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = checkPageSize(limit);
+        return BookPage.of(bookService.getBooksForAuthorAfter(authorFirstName, lastSeenId(next), pageSize + 1),
+                pageSize);
+    }
+
+    /**
+     * Same books as {@code /books}, read over R2DBC. The request thread is released while the query runs, and the
+     * response is written as rows arrive, as one JSON array or as newline delimited JSON. Pages follow the id of the
+     * last book of the previous page, 0 for the first page.
+     */
+    @RequestMapping(value = "/reactive/books", produces = {"application/json", NDJSON})
+    private Flux<BookView> getAllBooksReactive(@RequestParam(defaultValue = "0") long after,
+                                               @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return reactiveBookService.getBooksAfter(after, checkPageSize(limit));
+    }
+
+    @RequestMapping(value = "/reactive/books/author/{authorFirstName}", produces = {"application/json", NDJSON})
+    private Flux<BookView> getAllBooksForAuthorReactive(@PathVariable String authorFirstName,
+                                                        @RequestParam(defaultValue = "0") long after,
+                                                        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return reactiveBookService.getBooksForAuthorAfter(authorFirstName, after, checkPageSize(limit));
+    }
+
+    @RequestMapping(value = "/books/isbn/{isbn}", produces = "application/json")
+    private BookView getBookByIsbn(@PathVariable String isbn) {
+        return bookService.getBookByIsbn(isbn)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No book of ISBN " + isbn));
+    }
+
+    /**
+     * Looks up to {@link #MAX_PAGE_SIZE} books at once, as {@code /books/isbn?isbn=a,b,c}. Unknown ISBNs are left out.
+     */
+    @RequestMapping(value = "/books/isbn", produces = "application/json")
+    private List<BookView> getBooksByIsbn(@RequestParam("isbn") List<String> isbns) {
+        if (isbns.size() > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_PAGE_SIZE + " ISBNs");
+        }
+        return bookService.getBooksByIsbn(isbns);
+    }
+
+    /**
+     * Searches books by the words of their names, most relevant first. Pages are numbered from 0.
+     */
+    @RequestMapping(value = "/books/search", produces = "application/json")
+    private BookSearchPage searchBooks(@RequestParam String q,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return bookSearchService.search(q, page, checkPageSize(size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Completes the start of an author or book name as typed, from memory.
+     */
+    @RequestMapping(value = "/typeahead", produces = "application/json")
+    private TypeaheadResult completeNames(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return typeaheadService.complete(q, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private static int checkPageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private static long lastSeenId(String next) {
+        try {
+            return BookPage.lastSeenId(next);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streams an upload of books with their authors into the DB, as newline delimited JSON or as CSV with a header
+     * line. See {@link BookRecord} for the fields of a row.
+     */
+    @PostMapping(value = "/books/bulk", consumes = {NDJSON, "text/csv"}, produces = "application/json")
+    private BulkIngestionResult ingestBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            InputStream body) throws IOException {
+        Iterator<BookRecord> records = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf(NDJSON))
+                ? BookRecords.fromNdjson(objectMapper, body)
+                : BookRecords.fromCsv(body);
+        return bookIngestionService.ingest(records);
     }
 }
@@ -0,0 +1,61 @@
+package com.abhishek.demo.http.model;
+
+import com.abhishek.demo.db.projections.BookView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A page of books, along with the token of the next page. The token is opaque to clients, who pass it back as is to
+ * read the next page, and it is null on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class BookPage {
+
+    private static final String TOKEN_PREFIX = "id:";
+
+    private final List<BookView> items;
+    private final String next;
+
+    /**
+     * @param books    Books of the page in id order, fetched with a limit of one more than the page size, so that the
+     *                 presence of a next page is known without another query
+     * @param pageSize Number of books in a full page
+     */
+    public static BookPage of(List<BookView> books, int pageSize) {
+        if (books.size() <= pageSize) {
+            return new BookPage(books, null);
+        }
+        List<BookView> items = books.subList(0, pageSize);
+        return new BookPage(items, encodeToken(items.get(pageSize - 1).getId()));
+    }
+
+    /**
+     * @param token The token of a previous page, or null for the first page
+     * @return The id of the last book seen before the page, 0 for the first page.
+     * @throws IllegalArgumentException if the token was not issued by {@link #of}.
+     */
+    public static long lastSeenId(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (decoded.startsWith(TOKEN_PREFIX)) {
+                return Long.parseLong(decoded.substring(TOKEN_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included, reported below
+        }
+        throw new IllegalArgumentException("Invalid page token : " + token);
+    }
+
+    private static String encodeToken(long lastSeenId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((TOKEN_PREFIX + lastSeenId).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,20 @@
+package com.abhishek.demo.http.model;
+
+import lombok.*;
+
+/**
+ * One row of a bulk book upload: a book, along with the author it is written by.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class BookRecord {
+    private String name;
+    private String isbn;
+    private String authorFirstName;
+    private String authorLastName;
+    private String authorAccountNumber;
+}
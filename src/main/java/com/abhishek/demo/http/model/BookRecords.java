@@ -0,0 +1,116 @@
+package com.abhishek.demo.http.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming readers of bulk book uploads, that parse one {@link BookRecord} at a time, so an upload of any size is
+ * never held in memory as a whole.
+ */
+public final class BookRecords {
+
+    private BookRecords() {
+    }
+
+    /**
+     * Reads newline delimited JSON, one {@link BookRecord} object per line.
+     */
+    public static Iterator<BookRecord> fromNdjson(ObjectMapper objectMapper, InputStream in) throws IOException {
+        return objectMapper.readerFor(BookRecord.class).readValues(in);
+    }
+
+    /**
+     * Reads CSV with a header line naming the {@link BookRecord} properties of each column, in any order. Fields may be
+     * double quoted, with double quotes escaped by doubling them, but may not span lines.
+     */
+    public static Iterator<BookRecord> fromCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return new ArrayList<BookRecord>().iterator();
+        }
+        List<String> columns = parseCsvLine(header);
+        return new Iterator<BookRecord>() {
+            private String next = readDataLine();
+
+            private String readDataLine() {
+                try {
+                    String line;
+                    do {
+                        line = reader.readLine();
+                    } while (line != null && line.trim().isEmpty());
+                    return line;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public BookRecord next() {
+                if (next == null) throw new NoSuchElementException();
+                List<String> fields = parseCsvLine(next);
+                next = readDataLine();
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < columns.size() && i < fields.size(); i++) {
+                    values.put(columns.get(i).trim(), fields.get(i));
+                }
+                return BookRecord.builder()
+                        .name(values.get("name"))
+                        .isbn(values.get("isbn"))
+                        .authorFirstName(values.get("authorFirstName"))
+                        .authorLastName(values.get("authorLastName"))
+                        .authorAccountNumber(values.get("authorAccountNumber"))
+                        .build();
+            }
+        };
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(emptyToNull(field));
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(emptyToNull(field));
+        return fields;
+    }
+
+    private static String emptyToNull(StringBuilder field) {
+        return field.length() == 0 ? null : field.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package com.abhishek.demo.http.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookSearchHit {
+    private final long id;
+    private final String name;
+    private final String isbn;
+    /**
+     * Relevance of the book to the query, only comparable to the scores of the same query.
+     */
+    private final float score;
+}
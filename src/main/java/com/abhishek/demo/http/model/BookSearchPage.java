@@ -0,0 +1,21 @@
+package com.abhishek.demo.http.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A page of search results, most relevant first.
+ */
+@Getter
+@AllArgsConstructor
+public class BookSearchPage {
+    private final List<BookSearchHit> items;
+    private final int page;
+    private final int size;
+    /**
+     * Whether the next page has results.
+     */
+    private final boolean hasNext;
+}
@@ -0,0 +1,15 @@
+package com.abhishek.demo.http.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkIngestionResult {
+    private final long books;
+    private final long authors;
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+}
@@ -0,0 +1,19 @@
+package com.abhishek.demo.http.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Completions of a prefix, in alphabetical order.
+ */
+@Getter
+@AllArgsConstructor
+public class TypeaheadResult {
+    /**
+     * First and last names of authors.
+     */
+    private final List<String> authors;
+    private final List<String> books;
+}
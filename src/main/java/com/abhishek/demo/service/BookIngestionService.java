@@ -0,0 +1,116 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.config.BulkIngestionConfig;
+import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.http.model.BookRecord;
+import com.abhishek.demo.http.model.BulkIngestionResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes bulk uploads of books and their authors.
+ * <p>
+ * Rows are read one at a time and written in batches of {@link BulkIngestionConfig#getBatchSize()}, each in its own
+ * transaction, after which the persistence context is flushed and cleared. As ids come from pooled sequences, the
+ * inserts of a batch are sent as JDBC batches. Memory use stays the same however large the upload is.
+ *
+ * @implNote Authors are matched by first and last name against the authors of the same upload only, through a bounded
+ * cache of their ids. Looking them up in the DB would flush the pending inserts of the batch on every lookup.
+ */
+@Slf4j
+@Service
+public class BookIngestionService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BulkIngestionConfig config;
+
+    /**
+     * Writes all given records. Batches written before a failure stay committed.
+     *
+     * @param records The rows of the upload, read lazily
+     * @return Counts and throughput of the upload.
+     */
+    public BulkIngestionResult ingest(Iterator<BookRecord> records) {
+        long startNanos = System.nanoTime();
+        int batchSize = config.getBatchSize();
+        int authorCacheSize = config.getAuthorCacheSize();
+        Map<String, Long> authorIds = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > authorCacheSize;
+            }
+        };
+
+        long books = 0;
+        long authors = 0;
+        List<BookRecord> batch = new ArrayList<>(batchSize);
+        while (records.hasNext()) {
+            batch.add(records.next());
+            if (batch.size() == batchSize || !records.hasNext()) {
+                Integer created = transactionTemplate.execute(status -> writeBatch(batch, authorIds));
+                authors += created == null ? 0 : created;
+                books += batch.size();
+                batch.clear();
+                log.debug("Ingested {} books so far", books);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long rowsPerSecond = elapsedNanos == 0 ? 0 : TimeUnit.SECONDS.toNanos(books + authors) / elapsedNanos;
+        log.info("Ingested {} books and {} authors in {} ms, {} rows/s", books, authors,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond);
+        return new BulkIngestionResult(books, authors, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond);
+    }
+
+    /**
+     * @return Number of authors created by this batch.
+     */
+    private int writeBatch(List<BookRecord> batch, Map<String, Long> authorIds) {
+        int created = 0;
+        for (BookRecord record : batch) {
+            Author author = null;
+            if (record.getAuthorFirstName() != null || record.getAuthorLastName() != null) {
+                String authorKey = record.getAuthorFirstName() + '\u0000' + record.getAuthorLastName();
+                Long authorId = authorIds.get(authorKey);
+                if (authorId != null) {
+                    author = entityManager.getReference(Author.class, authorId);
+                } else {
+                    author = Author.builder()
+                            .firstName(record.getAuthorFirstName())
+                            .lastName(record.getAuthorLastName())
+                            .accountNumber(record.getAuthorAccountNumber())
+                            .build();
+                    entityManager.persist(author);
+                    authorIds.put(authorKey, author.getId());
+                    created++;
+                }
+            }
+            entityManager.persist(Book.builder()
+                    .name(record.getName())
+                    .ISBN(record.getIsbn())
+                    .author(author)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return created;
+    }
+}
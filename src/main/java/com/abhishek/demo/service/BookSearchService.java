@@ -0,0 +1,191 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.event.EntityChangeListener;
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.http.model.BookSearchHit;
+import com.abhishek.demo.http.model.BookSearchPage;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over book names, through an in-memory Lucene index, unlike
+ * {@link com.abhishek.demo.db.repository.BookRepository#findByNameContaining} whose {@code LIKE '%x%'} scans the whole
+ * table. Names are split into lower cased words, and a query matches the books having any of its words, ranked by
+ * BM25 relevance, so the cost of a search grows with the number of matching books rather than of all books.
+ * <p>
+ * The index is built from the DB at startup, then kept up to date from the books of committed transactions, see
+ * {@link EntityChangeListener}. The index is refreshed once per committed transaction, on the committing thread, so
+ * searches see the changes of a transaction as soon as its commit returns, without refreshing themselves.
+ */
+@Slf4j
+@Service
+public class BookSearchService implements EntityChangeListener, ApplicationRunner {
+
+    /**
+     * Deepest result reachable by paging, as each page re-runs the search for all the results before it.
+     */
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String ISBN = "isbn";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = new ByteBuffersDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Indexes the books already in the DB, reading them from a cursor.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        long startNanos = System.nanoTime();
+        long[] count = {0};
+        jdbcTemplate.query("select id, name, isbn from book", rs -> {
+            index(rs.getLong(1), rs.getString(2), rs.getString(3));
+            count[0]++;
+        });
+        searcherManager.maybeRefreshBlocking();
+        log.info("Indexed {} books for search in {} ms", count[0],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @param text Words to look for in book names
+     * @param page Page of results, from 0
+     * @param size Number of results in a page
+     * @throws IllegalArgumentException if the page is beyond {@link #MAX_RESULT_WINDOW}.
+     */
+    public BookSearchPage search(@NonNull String text, int page, int size) {
+        if (page < 0 || size < 1 || (page + 1L) * size > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Search results are limited to the first " + MAX_RESULT_WINDOW);
+        }
+        int end = (page + 1) * size;
+        Query query = queryBuilder.createBooleanQuery(NAME, text, BooleanClause.Occur.SHOULD);
+        if (query == null) {
+            // no word in the text
+            return new BookSearchPage(Collections.emptyList(), page, size, false);
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, end + 1);
+                List<BookSearchHit> hits = new ArrayList<>(size);
+                for (int i = page * size; i < Math.min(end, top.scoreDocs.length); i++) {
+                    ScoreDoc scoreDoc = top.scoreDocs[i];
+                    Document document = searcher.doc(scoreDoc.doc);
+                    hits.add(new BookSearchHit(Long.parseLong(document.get(ID)), document.get(NAME),
+                            document.get(ISBN), scoreDoc.score));
+                }
+                return new BookSearchPage(hits, page, size, top.scoreDocs.length > end);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onSaved(Object entity) {
+        if (entity instanceof Book) {
+            Book book = (Book) entity;
+            index(book.getId(), book.getName(), book.getISBN());
+        }
+    }
+
+    @Override
+    public void onDeleted(Object entity) {
+        if (entity instanceof Book) {
+            try {
+                writer.deleteDocuments(idTerm(((Book) entity).getId()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void onCommitted() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void index(long id, String name, String isbn) {
+        try {
+            if (name == null) {
+                writer.deleteDocuments(idTerm(id));
+                return;
+            }
+            Document document = new Document();
+            document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+            document.add(new TextField(NAME, name, Field.Store.YES));
+            if (isbn != null) {
+                document.add(new StoredField(ISBN, isbn));
+            }
+            writer.updateDocument(idTerm(id), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Term idTerm(long id) {
+        return new Term(ID, String.valueOf(id));
+    }
+}
@@ -1,24 +1,57 @@
 package com.abhishek.demo.service;
 
+import com.abhishek.demo.db.config.WriteBehindConfig;
+import com.abhishek.demo.db.projections.BookDto;
 import com.abhishek.demo.db.projections.BookView;
 import com.abhishek.demo.db.model.Book;
 import com.abhishek.demo.db.repository.BookRepository;
+import com.abhishek.demo.db.retry.OptimisticLockRetryTemplate;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class BookService {
 
+    /**
+     * Maximum number of ISBNs looked up by one statement of {@link #getBooksByIsbn}.
+     */
+    static final int ISBN_CHUNK_SIZE = 256;
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookWriteBehindQueue bookWriteBehindQueue;
+
+    @Autowired
+    private OptimisticLockRetryTemplate optimisticLockRetryTemplate;
+
+    @Autowired
+    private WriteBehindConfig writeBehindConfig;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public List<Book> list() {
         return bookRepository.findAll();
     }
@@ -28,21 +61,114 @@ public class BookService {
         getAllBooks().forEach(book -> log.info(book.toString()));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<BookView> getAllBooks(){
 //        Sort.TypedSort<Book> bookSort = Sort.sort(Book.class);
 //        return bookRepository.findAllAndSort(bookSort.by(Book::getName).ascending()
 //                .and(bookSort.by(Book::getAuthor).descending()),
 //                BookView.class
 //        );
-        return bookRepository.findAllByIdGreaterThan(0L);
+        return Collections.unmodifiableList(bookRepository.findAllByIdGreaterThan(0L));
     }
 
+    @Transactional(readOnly = true)
     public List<BookView> getAllBooksForAuthor(@NonNull String authorFirstName){
-        return bookRepository.findByAuthor_FirstName(authorFirstName);
+        return Collections.unmodifiableList(bookRepository.findByAuthor_FirstName(authorFirstName));
+    }
+
+    /**
+     * @param lastSeenId Id of the last book already read, 0 to start from the first book
+     * @param limit      Maximum number of books to return
+     * @return The books following lastSeenId, in id order.
+     */
+    @Transactional(readOnly = true)
+    public List<BookView> getBooksAfter(long lastSeenId, int limit) {
+        return Collections.unmodifiableList(
+                bookRepository.findByIdGreaterThanOrderByIdAsc(lastSeenId, PageRequest.of(0, limit)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookView> getBooksForAuthorAfter(@NonNull String authorFirstName, long lastSeenId, int limit) {
+        return Collections.unmodifiableList(bookRepository.findByAuthor_FirstNameAndIdGreaterThanOrderByIdAsc(
+                authorFirstName, lastSeenId, PageRequest.of(0, limit)));
+    }
+
+    /**
+     * Hands every book to the consumer in id order, as it is read from the DB cursor. Memory use is bounded by
+     * {@link BookRepository#STREAM_FETCH_SIZE} rather than by the number of books, as the cursor fetches that many rows
+     * at a time, and the {@link BookDto}s read are not managed by the persistence context.
+     *
+     * @return Number of books read.
+     */
+    @Transactional(readOnly = true)
+    public long streamAllBooks(Consumer<BookView> consumer) {
+        long count = 0;
+        try (Stream<BookDto> books = bookRepository.streamAllByOrderByIdAsc()) {
+            for (Iterator<BookDto> it = books.iterator(); it.hasNext(); count++) {
+                consumer.accept(it.next());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Looks the book up by its natural id. The id of the ISBN is resolved through the natural-id cache, then the book
+     * is read from the second-level cache, so a lookup costs at most one primary key load per entity not cached yet.
+     * Its author, not cached by default as it holds an encrypted attribute, costs one more.
+     */
+    @Transactional(readOnly = true)
+    public Optional<BookView> getBookByIsbn(@NonNull String isbn) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Book.class)
+                .loadOptional(isbn)
+                // read while the session is open, the view is serialized after
+                .map(BookDto::of);
+    }
+
+    /**
+     * @param isbns ISBNs of the books, looked up {@link #ISBN_CHUNK_SIZE} at a time
+     * @return The books found, in no particular order. Unknown ISBNs are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<BookView> getBooksByIsbn(@NonNull Collection<String> isbns) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(isbns));
+        List<BookView> books = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += ISBN_CHUNK_SIZE) {
+            books.addAll(bookRepository.findByISBNIn(
+                    distinct.subList(from, Math.min(from + ISBN_CHUNK_SIZE, distinct.size()))));
+        }
+        return books;
     }
 
     public Book createNewBook(Book book){
         return bookRepository.save(book);
     }
+
+    /**
+     * Changes the book in a transaction of its own, again on the latest state of the book when the commit conflicts
+     * with a concurrent change.
+     *
+     * @param change Applied to the book as read by each attempt, and so possibly more than once
+     * @return The book as committed, or empty if there is no book of that id.
+     */
+    public Optional<Book> updateBook(long id, @NonNull Consumer<Book> change) {
+        return optimisticLockRetryTemplate.execute(Book.class, status -> bookRepository.findById(id).map(book -> {
+            change.accept(book);
+            return book;
+        }));
+    }
+
+    /**
+     * Creates the book through the {@link BookWriteBehindQueue} when write-behind is enabled, so that it is committed
+     * along with other books, or right away through {@link #createNewBook} otherwise.
+     *
+     * @return Completes with the id of the book once committed.
+     * @throws java.util.concurrent.RejectedExecutionException if the write-behind queue stays full.
+     */
+    public CompletableFuture<Long> createNewBookAsync(@NonNull Book book) throws InterruptedException {
+        if (writeBehindConfig.isEnabled()) {
+            return bookWriteBehindQueue.submit(book);
+        }
+        return CompletableFuture.completedFuture(createNewBook(book).getId());
+    }
 }
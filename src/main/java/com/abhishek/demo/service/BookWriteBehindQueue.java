@@ -0,0 +1,217 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.config.WriteBehindConfig;
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.repository.BookRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind of new books: creates are queued, and a single writer thread saves them in batches of up to
+ * {@link WriteBehindConfig#getBatchSize()} books, one transaction per batch, so that bursts of creates cost a few
+ * commits rather than one each. A batch is written once full, or {@link WriteBehindConfig#getMaxDelay()} after its
+ * first book was taken from the queue.
+ * <p>
+ * The queue is bounded: once full, creates wait up to {@link WriteBehindConfig#getOfferTimeout()} for room and are
+ * rejected after that. On shutdown, new creates are rejected and the books already queued are written before the
+ * application context closes.
+ *
+ * @implNote All books of a batch share its transaction, and so its outcome: when the batch fails, e.g. on a duplicate
+ * ISBN, the futures of all its books fail with the same exception, and none of them is written.
+ */
+@Slf4j
+@Service
+public class BookWriteBehindQueue {
+
+    /**
+     * How often the writer checks for shutdown while waiting for books.
+     */
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindConfig config;
+
+    private final BlockingQueue<PendingBook> queue;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "book-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private final AtomicLong booksWritten = new AtomicLong();
+
+    private boolean started;
+
+    private volatile boolean closed;
+
+    public BookWriteBehindQueue(BookRepository bookRepository, TransactionTemplate transactionTemplate,
+                                WriteBehindConfig config, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getCapacity());
+        // not a MeterBinder, which the registry would create along with the repositories, before the data source
+        meterRegistry.ifAvailable(this::bindMeters);
+    }
+
+    /**
+     * Queues the book to be written with the next batch. Blocks while the queue is full, up to the offer timeout.
+     *
+     * @return Completes with the id of the book once its batch is committed, or with the exception the batch failed
+     * with.
+     * @throws RejectedExecutionException if the queue is still full after the offer timeout, or is shut down.
+     */
+    public CompletableFuture<Long> submit(@NonNull Book book) throws InterruptedException {
+        startWriter();
+        PendingBook pending = new PendingBook(book);
+        if (closed) {
+            throw new RejectedExecutionException("Book write-behind is shut down");
+        }
+        if (!queue.offer(pending, config.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new RejectedExecutionException("Book write-behind queue is full, " + queue.size() + " books waiting");
+        }
+        // closed while offering, possibly after close() drained the queue. Unless the book could no longer be removed,
+        // in which case the writer or close() took it, and completes its future
+        if (closed && queue.remove(pending)) {
+            throw new RejectedExecutionException("Book write-behind is shut down");
+        }
+        return pending.future;
+    }
+
+    /**
+     * Number of batches committed so far.
+     */
+    public long getBatchesWritten() {
+        return batchesWritten.get();
+    }
+
+    public long getBooksWritten() {
+        return booksWritten.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void bindMeters(MeterRegistry registry) {
+        Gauge.builder("db.write-behind.queue.size", queue, BlockingQueue::size)
+                .description("Books waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("db.write-behind.batches", batchesWritten, AtomicLong::get)
+                .description("Batches of books committed")
+                .register(registry);
+        FunctionCounter.builder("db.write-behind.books", booksWritten, AtomicLong::get)
+                .description("Books committed through the write-behind queue")
+                .register(registry);
+    }
+
+    /**
+     * Stops accepting books, and waits for the queued ones to be written. Books still queued after the shutdown
+     * timeout are failed.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        writer.shutdown();
+        if (!writer.awaitTermination(config.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Book write-behind did not drain within {}", config.getShutdownTimeout());
+            writer.shutdownNow();
+        }
+        // books queued by creates racing with the shutdown, or left by the timeout
+        List<PendingBook> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (PendingBook pending : left) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Book write-behind is shut down"));
+        }
+        log.info("Book write-behind closed, {} books written in {} batches, {} books dropped", booksWritten.get(),
+                batchesWritten.get(), left.size());
+    }
+
+    private synchronized void startWriter() {
+        if (!started && !closed) {
+            writer.execute(this::writeBatches);
+            started = true;
+        }
+    }
+
+    private void writeBatches() {
+        int batchSize = config.getBatchSize();
+        long maxDelayNanos = config.getMaxDelay().toNanos();
+        List<PendingBook> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                PendingBook first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                queue.drainTo(batch, batchSize - batch.size());
+                // waits in slices, so that a shutdown writes the batch right away
+                for (long left = deadline - System.nanoTime(); batch.size() < batchSize && left > 0 && !closed;
+                     left = deadline - System.nanoTime()) {
+                    PendingBook next = queue.poll(Math.min(left, POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                        queue.drainTo(batch, batchSize - batch.size());
+                    }
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+        }
+    }
+
+    private void write(List<PendingBook> batch) {
+        List<Book> books = new ArrayList<>(batch.size());
+        batch.forEach(pending -> books.add(pending.book));
+        List<Book> saved;
+        try {
+            saved = transactionTemplate.execute(status -> bookRepository.saveAll(books));
+        } catch (Throwable e) {
+            // Errors included, so that they fail the batch rather than the writer thread
+            log.warn("Failed writing a batch of {} books", batch.size(), e);
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+            return;
+        }
+        batchesWritten.incrementAndGet();
+        booksWritten.addAndGet(batch.size());
+        log.debug("Wrote a batch of {} books", batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(saved.get(i).getId());
+        }
+    }
+
+    private static final class PendingBook {
+        private final Book book;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private PendingBook(Book book) {
+            this.book = book;
+        }
+    }
+}
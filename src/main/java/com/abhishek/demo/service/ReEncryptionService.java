@@ -0,0 +1,222 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.config.ReEncryptionConfig;
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter;
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import com.abhishek.demo.db.model.ReEncryptionCheckpoint;
+import com.abhishek.demo.db.repository.ReEncryptionCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Background job that migrates an encrypted column to a new {@link CipherFormat}, e.g. from BASE_64 to AES_V1 after
+ * {@link EncryptedAttributeConverter#getEncryptionFormat} starts returning the new format, or to the latest version of
+ * its key after the keys were rotated.
+ * <p>
+ * Rows are streamed in id ordered chunks through plain JDBC, so neither the table nor the entities are ever held in
+ * memory or in a persistence context. Each chunk is re-encrypted and written back in JDBC batches in its own short
+ * transaction. A wave of chunks is processed in parallel, after which the highest id of the wave is saved as a
+ * {@link ReEncryptionCheckpoint}, from which the job resumes after a restart.
+ *
+ * @implNote A row is only written back if its value did not change since it was read. Rows updated concurrently by
+ * the application are left to the application's own encryption format.
+ */
+@Slf4j
+@Service
+public class ReEncryptionService {
+
+    private static final Pattern SQL_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    @Autowired
+    private ReEncryptionConfig config;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ReEncryptionCheckpointRepository checkpointRepository;
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "re-encryption");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean stopped;
+
+    private Future<ReEncryptionCheckpoint> running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIfEnabled() {
+        if (config.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Starts the job in background, unless it is already running.
+     *
+     * @return Completes with the final checkpoint once the job finished or stopped.
+     */
+    public synchronized Future<ReEncryptionCheckpoint> start() {
+        if (running == null || running.isDone()) {
+            running = jobExecutor.submit(this::reEncrypt);
+        }
+        return running;
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs the job on the calling thread, from the last saved checkpoint until all rows are in the target format.
+     *
+     * @return The checkpoint at which the job finished or stopped.
+     */
+    public ReEncryptionCheckpoint reEncrypt() throws InterruptedException, ExecutionException {
+        String table = sqlIdentifier(config.getTable());
+        String column = sqlIdentifier(config.getColumn());
+        CipherFormat targetFormat = config.getTargetFormat();
+        String targetDbPrefix = targetFormat.getCurrentDbPrefix();
+        String jobName = table + "." + column;
+
+        // a checkpoint of another format or key version does not tell which rows are done, so the job starts over
+        ReEncryptionCheckpoint checkpoint = checkpointRepository.findById(jobName)
+                .filter(c -> c.getTargetFormat() == targetFormat && targetDbPrefix.equals(c.getTargetDbPrefix()))
+                .orElseGet(() -> ReEncryptionCheckpoint.builder()
+                        .jobName(jobName)
+                        .targetFormat(targetFormat)
+                        .targetDbPrefix(targetDbPrefix)
+                        .lastId(0L)
+                        .rowsReEncrypted(0L)
+                        .build());
+        log.info("Re-encrypting {} to {} from id {}", jobName, targetDbPrefix, checkpoint.getLastId());
+
+        String selectSql = "select id, " + column + " from " + table + " where id > ? and " + column + " is not null"
+                + " and " + column + " not like ? order by id limit ?";
+        String updateSql = "update " + table + " set " + column + " = ? where id = ? and " + column + " = ?";
+        String targetPattern = targetDbPrefix + ":%";
+
+        ExecutorService workers = Executors.newFixedThreadPool(config.getParallelism());
+        long startNanos = System.nanoTime();
+        long rowsRead = 0;
+        try {
+            while (!stopped) {
+                // Read a wave of consecutive chunks, then re-encrypt them in parallel
+                List<List<Row>> wave = new ArrayList<>();
+                long lastId = checkpoint.getLastId();
+                for (int i = 0; i < config.getParallelism(); i++) {
+                    List<Row> chunk = jdbcTemplate.query(selectSql,
+                            (rs, rowNum) -> new Row(rs.getLong(1), rs.getString(2)),
+                            lastId, targetPattern, config.getChunkSize());
+                    if (chunk.isEmpty()) break;
+                    wave.add(chunk);
+                    lastId = chunk.get(chunk.size() - 1).id;
+                    if (chunk.size() < config.getChunkSize()) break;
+                }
+                if (wave.isEmpty()) {
+                    log.info("Re-encryption of {} to {} complete, {} rows re-encrypted", jobName, targetFormat, checkpoint.getRowsReEncrypted());
+                    break;
+                }
+
+                List<Future<Integer>> results = new ArrayList<>();
+                for (List<Row> chunk : wave) {
+                    results.add(workers.submit(() -> reEncryptChunk(chunk, targetFormat, updateSql)));
+                    rowsRead += chunk.size();
+                }
+                long updated = 0;
+                for (Future<Integer> result : results) {
+                    updated += result.get();
+                }
+
+                checkpoint.setLastId(lastId);
+                checkpoint.setRowsReEncrypted(checkpoint.getRowsReEncrypted() + updated);
+                checkpoint = checkpointRepository.save(checkpoint);
+                log.debug("Re-encrypted {} rows of {} up to id {}", updated, jobName, lastId);
+
+                throttle(startNanos, rowsRead);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return checkpoint;
+    }
+
+    private int reEncryptChunk(List<Row> chunk, CipherFormat targetFormat, String updateSql) {
+        List<String> values = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            values.add(row.value);
+        }
+        List<String> reEncrypted = EncryptedAttributeConverter.reEncryptAll(values, targetFormat);
+        List<Object[]> updates = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Row row = chunk.get(i);
+            updates.add(new Object[]{reEncrypted.get(i), row.id, row.value});
+        }
+        int[][] updateCounts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(updateSql, updates,
+                config.getBatchSize(), (ps, update) -> {
+                    ps.setString(1, (String) update[0]);
+                    ps.setLong(2, (Long) update[1]);
+                    ps.setString(3, (String) update[2]);
+                }));
+        int updated = 0;
+        for (int[] batch : updateCounts) {
+            for (int count : batch) {
+                // some drivers only report success without a row count for batched statements
+                updated += count > 0 ? count : 0;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Sleeps long enough to keep the overall rate under {@link ReEncryptionConfig#getMaxRowsPerSecond()}.
+     */
+    private void throttle(long startNanos, long rowsRead) throws InterruptedException {
+        Integer maxRowsPerSecond = config.getMaxRowsPerSecond();
+        if (maxRowsPerSecond == null || maxRowsPerSecond <= 0) return;
+        long minElapsedNanos = TimeUnit.SECONDS.toNanos(rowsRead) / maxRowsPerSecond;
+        long sleepNanos = minElapsedNanos - (System.nanoTime() - startNanos);
+        if (sleepNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+    }
+
+    private static String sqlIdentifier(String name) {
+        if (name == null || !SQL_IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Not a valid table or column name : " + name);
+        }
+        return name;
+    }
+
+    private static final class Row {
+        private final long id;
+        private final String value;
+
+        private Row(long id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.projections.BookView;
+import com.abhishek.demo.db.repository.ReactiveBookRepository;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reads of {@link BookService}, over R2DBC, so that no thread waits on the DB while a query runs.
+ */
+@Service
+public class ReactiveBookService {
+
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+
+    /**
+     * @see BookService#getBooksAfter(long, int)
+     */
+    public Flux<BookView> getBooksAfter(long lastSeenId, int limit) {
+        return reactiveBookRepository.findPageAfter(lastSeenId, limit).cast(BookView.class);
+    }
+
+    /**
+     * @see BookService#getBooksForAuthorAfter(String, long, int)
+     */
+    public Flux<BookView> getBooksForAuthorAfter(@NonNull String authorFirstName, long lastSeenId, int limit) {
+        return reactiveBookRepository.findPageForAuthorAfter(authorFirstName, lastSeenId, limit).cast(BookView.class);
+    }
+}
@@ -0,0 +1,157 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.event.EntityChangeListener;
+import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.http.model.TypeaheadResult;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes prefixes of author first and last names and of book names, from memory, for lookups made on every
+ * keystroke. Names are held in sorted maps keyed by their lower cased form, so the completions of a prefix are the
+ * entries right after it: a lookup costs a logarithmic seek plus one step per completion, without any DB query.
+ * <p>
+ * The maps are built at startup from a cursor over the author and book tables, then kept up to date from the entities
+ * of committed transactions, see {@link EntityChangeListener}. Names shared by several rows are held once, with the
+ * number of rows having them, and are dropped with their last row.
+ */
+@Slf4j
+@Service
+public class TypeaheadService implements EntityChangeListener, ApplicationRunner {
+
+    /**
+     * Largest number of completions returned for a prefix.
+     */
+    public static final int MAX_COMPLETIONS = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Names authorNames = new Names();
+    private final Names bookNames = new Names();
+
+    /**
+     * Indexes the authors and books already in the DB, reading them from a cursor.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        long startNanos = System.nanoTime();
+        jdbcTemplate.query("select id, first_name, last_name from author",
+                (RowCallbackHandler) rs -> authorNames.put(rs.getLong(1), rs.getString(2), rs.getString(3)));
+        jdbcTemplate.query("select id, name from book",
+                (RowCallbackHandler) rs -> bookNames.put(rs.getLong(1), rs.getString(2)));
+        log.info("Indexed {} author names and {} book names for typeahead in {} ms", authorNames.size(),
+                bookNames.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @param prefix Start of the names, in any case
+     * @param limit  Maximum number of completions of each kind, up to {@link #MAX_COMPLETIONS}
+     */
+    public TypeaheadResult complete(@NonNull String prefix, int limit) {
+        if (limit < 1 || limit > MAX_COMPLETIONS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_COMPLETIONS);
+        }
+        String key = normalize(prefix);
+        return new TypeaheadResult(authorNames.complete(key, limit), bookNames.complete(key, limit));
+    }
+
+    @Override
+    public void onSaved(Object entity) {
+        if (entity instanceof Author) {
+            Author author = (Author) entity;
+            authorNames.put(author.getId(), author.getFirstName(), author.getLastName());
+        } else if (entity instanceof Book) {
+            Book book = (Book) entity;
+            bookNames.put(book.getId(), book.getName());
+        }
+    }
+
+    @Override
+    public void onDeleted(Object entity) {
+        if (entity instanceof Author) {
+            authorNames.remove(((Author) entity).getId());
+        } else if (entity instanceof Book) {
+            bookNames.remove(((Book) entity).getId());
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Names of one kind of entity. Lookups are lock free, while changes are serialized, as a change of a row must
+     * drop its previous names.
+     */
+    private static final class Names {
+
+        private final ConcurrentSkipListMap<String, Name> byKey = new ConcurrentSkipListMap<>();
+        private final Map<Long, List<String>> namesById = new ConcurrentHashMap<>();
+
+        List<String> complete(String prefix, int limit) {
+            NavigableMap<String, Name> completions = byKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            List<String> names = new ArrayList<>(Math.min(limit, 16));
+            for (Name name : completions.values()) {
+                if (names.size() == limit) break;
+                names.add(name.text);
+            }
+            return names;
+        }
+
+        int size() {
+            return byKey.size();
+        }
+
+        synchronized void put(Long id, String... names) {
+            List<String> current = new ArrayList<>(names.length);
+            for (String name : names) {
+                if (name != null && !name.trim().isEmpty()) {
+                    current.add(name.trim());
+                }
+            }
+            List<String> previous = current.isEmpty() ? namesById.remove(id) : namesById.put(id, current);
+            if (previous != null && previous.equals(current)) {
+                return;
+            }
+            for (String name : current) {
+                byKey.merge(normalize(name), new Name(name, 1), (a, b) -> new Name(a.text, a.rows + 1));
+            }
+            release(previous);
+        }
+
+        synchronized void remove(Long id) {
+            release(namesById.remove(id));
+        }
+
+        private void release(List<String> names) {
+            for (String name : names == null ? Collections.<String>emptyList() : names) {
+                byKey.computeIfPresent(normalize(name), (key, n) -> n.rows == 1 ? null : new Name(n.text, n.rows - 1));
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static final class Name {
+        private final String text;
+        private final int rows;
+    }
+}
@@ -0,0 +1,223 @@
+package com.abhishek.demo.util;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.xml.crypto.KeySelectorException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link SecretLoader} backed by a local {@link KeyStore} file, PKCS12 by default.
+ * <p>
+ * All secret key entries are read once into an in-memory key ring, keyed by alias and version, so that loading a key
+ * for a conversion never touches the file. The file is then polled in background, and the key ring is swapped for a
+ * freshly loaded one whenever the file changes, after which the refresh listener is notified.
+ * <p>
+ * Entries are named {@code <alias>[.v<version>][.iv]}, e.g. {@code aes_v1}, {@code aes_v1.v2} and {@code aes_v1.v2.iv}
+ * for the IV of version 2. An entry without version is version 0, and an alias resolves to its highest version. Older
+ * versions stay loaded, so that values encrypted before a rotation remain readable, and must be kept in the file for
+ * as long as such values exist. As
+ * PKCS12 lower cases all entry names, aliases are matched case insensitively. Such a key store can be created with
+ * {@code keytool}, where a 128 bit AES key makes a valid 16 byte IV:
+ * <pre>
+ * keytool -genseckey -storetype PKCS12 -keystore keys.p12 -alias aes_v1 -keyalg AES -keysize 256
+ * keytool -genseckey -storetype PKCS12 -keystore keys.p12 -alias aes_v1.iv -keyalg AES -keysize 128
+ * keytool -genseckey -storetype PKCS12 -keystore keys.p12 -alias blind_index_v1 -keyalg HmacSHA256 -keysize 256
+ * </pre>
+ *
+ * @implNote A failed refresh is logged and the previous key ring stays in use, so a half written file never takes
+ * the keys away from a running application.
+ */
+@Slf4j
+public class KeyStoreSecretLoader implements SecretLoader, Closeable {
+
+    private static final Pattern ENTRY_NAME = Pattern.compile("(.+?)(?:\\.v(\\d+))?(\\.iv)?");
+
+    private final Path path;
+    private final char[] password;
+    private final String type;
+    private final Runnable refreshListener;
+    private final ScheduledExecutorService refresher;
+
+    private volatile KeyRing keyRing;
+    private volatile FileTime lastModified;
+
+    /**
+     * Loads the key ring from the given file, and starts watching it for changes.
+     *
+     * @param path            The key store file
+     * @param password        Password of the key store, and of all its entries
+     * @param type            Key store type, as in {@link KeyStore#getInstance(String)}
+     * @param refreshInterval How often the file is checked for changes
+     * @param refreshListener Called after the key ring has been refreshed, e.g. to drop keys loaded from the old one
+     * @throws IllegalStateException if the key store cannot be loaded
+     */
+    public KeyStoreSecretLoader(@NonNull Path path, @NonNull char[] password, @NonNull String type,
+                                @NonNull Duration refreshInterval, @NonNull Runnable refreshListener) {
+        this.path = path;
+        this.password = password.clone();
+        this.type = type;
+        this.refreshListener = refreshListener;
+        try {
+            load();
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load key store " + path, e);
+        }
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "key-store-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refreshIfModified, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public SecretKey getSecretKey(@NonNull String alias, int keyLength) throws KeySelectorException {
+        NavigableMap<Integer, SecretKey> versions = keyRing.keys.get(normalize(alias));
+        if (versions == null) {
+            throw new KeySelectorException("Could not get SecretKey by alias : " + alias);
+        }
+        return checkLength(alias, versions.lastEntry().getValue(), keyLength);
+    }
+
+    @Override
+    public int getLatestVersion(@NonNull String alias) throws KeySelectorException {
+        NavigableMap<Integer, SecretKey> versions = keyRing.keys.get(normalize(alias));
+        if (versions == null) {
+            throw new KeySelectorException("Could not get SecretKey by alias : " + alias);
+        }
+        return versions.lastKey();
+    }
+
+    @Override
+    public SecretKey getSecretKey(@NonNull String alias, int version, int keyLength) throws KeySelectorException {
+        SecretKey key = keyRing.keys.getOrDefault(normalize(alias), Collections.emptyNavigableMap()).get(version);
+        if (key == null) {
+            throw new KeySelectorException("Could not get SecretKey by alias : " + alias + ", version : " + version);
+        }
+        return checkLength(alias, key, keyLength);
+    }
+
+    /**
+     * @return The IV stored along with the latest version of the alias' key.
+     */
+    @Override
+    public IvParameterSpec getIvSpec(@NonNull String alias) throws IllegalArgumentException {
+        String name = normalize(alias);
+        NavigableMap<Integer, SecretKey> versions = keyRing.keys.get(name);
+        IvParameterSpec iv = versions == null ? null
+                : keyRing.ivs.getOrDefault(name, Collections.emptyNavigableMap()).get(versions.lastKey());
+        if (iv == null) {
+            throw new IllegalArgumentException("Could not get Initialization vector for alias : " + alias);
+        }
+        return iv;
+    }
+
+    @Override
+    public IvParameterSpec getIvSpec(@NonNull String alias, int version) throws IllegalArgumentException {
+        IvParameterSpec iv = keyRing.ivs.getOrDefault(normalize(alias), Collections.emptyNavigableMap()).get(version);
+        if (iv == null) {
+            throw new IllegalArgumentException("Could not get Initialization vector for alias : " + alias
+                    + ", version : " + version);
+        }
+        return iv;
+    }
+
+    private static SecretKey checkLength(String alias, SecretKey key, int keyLength) throws KeySelectorException {
+        if (keyLength > 0 && key.getEncoded().length * 8 != keyLength) {
+            throw new KeySelectorException("SecretKey of alias " + alias + " is not " + keyLength + " bits long");
+        }
+        return key;
+    }
+
+    private void refreshIfModified() {
+        try {
+            if (!Files.getLastModifiedTime(path).equals(lastModified)) {
+                load();
+                refreshListener.run();
+            }
+        } catch (Exception e) {
+            log.error("Could not refresh key store {}, keeping the previously loaded keys", path, e);
+        }
+    }
+
+    private void load() throws IOException, GeneralSecurityException {
+        long startNanos = System.nanoTime();
+        FileTime modified = Files.getLastModifiedTime(path);
+        KeyStore keyStore = KeyStore.getInstance(type);
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+
+        Map<String, NavigableMap<Integer, SecretKey>> keys = new HashMap<>();
+        Map<String, NavigableMap<Integer, IvParameterSpec>> ivs = new HashMap<>();
+        for (Enumeration<String> entries = keyStore.aliases(); entries.hasMoreElements(); ) {
+            String entry = entries.nextElement();
+            Matcher name = ENTRY_NAME.matcher(normalize(entry));
+            Key key = keyStore.isKeyEntry(entry) ? keyStore.getKey(entry, password) : null;
+            if (!name.matches() || !(key instanceof SecretKey)) {
+                log.warn("Skipping key store entry {}, not a secret key", entry);
+                continue;
+            }
+            int version = name.group(2) == null ? 0 : Integer.parseInt(name.group(2));
+            if (name.group(3) != null) {
+                ivs.computeIfAbsent(name.group(1), a -> new TreeMap<>())
+                        .put(version, new IvParameterSpec(key.getEncoded()));
+            } else {
+                keys.computeIfAbsent(name.group(1), a -> new TreeMap<>()).put(version, (SecretKey) key);
+            }
+        }
+
+        this.keyRing = new KeyRing(keys, ivs);
+        this.lastModified = modified;
+        log.info("Loaded {} key aliases from key store {} in {} ms", keys.size(), path,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private static String normalize(String alias) {
+        return alias.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Stops watching the key store file.
+     */
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private static final class KeyRing {
+        private final Map<String, NavigableMap<Integer, SecretKey>> keys;
+        private final Map<String, NavigableMap<Integer, IvParameterSpec>> ivs;
+
+        private KeyRing(Map<String, NavigableMap<Integer, SecretKey>> keys,
+                        Map<String, NavigableMap<Integer, IvParameterSpec>> ivs) {
+            this.keys = keys;
+            this.ivs = ivs;
+        }
+    }
+}
@@ -26,6 +26,35 @@ public interface SecretLoader {
         throw new KeySelectorException("Could not get SecretKey by alias : " + alias);
     }
 
+    /**
+     * Latest version of the key of an alias, the one {@link #getSecretKey(String, int)} returns. Loaders that keep a
+     * single key per alias only ever have version 0.
+     *
+     * @param alias - The identifier of alias to find the key for.
+     * @return Version of the key new values are to be encrypted with.
+     * @throws KeySelectorException If there is no key for the given alias
+     */
+    default int getLatestVersion(@NonNull String alias) throws KeySelectorException {
+        return 0;
+    }
+
+    /**
+     * Same as {@link #getSecretKey(String, int)}, for a given version of the key rather than the latest one. Needed to
+     * decrypt values written before the key was rotated.
+     *
+     * @param alias     - The identifier of alias to find and load the key for.
+     * @param version   - The version of the key, as returned by {@link #getLatestVersion(String)} at encryption time
+     * @param keyLength - helper attribute to confirm the length of key is as per expectation
+     * @return SecretKey of the given version.
+     * @throws KeySelectorException If valid key cannot be found/loaded for the given alias and version
+     */
+    default SecretKey getSecretKey(@NonNull String alias, int version, int keyLength) throws KeySelectorException {
+        if (version == 0) {
+            return getSecretKey(alias, keyLength);
+        }
+        throw new KeySelectorException("Could not get SecretKey by alias : " + alias + ", version : " + version);
+    }
+
     /**
      * Method that tries to load Initialization Vector for a given alias.
      *
@@ -37,4 +66,20 @@ public interface SecretLoader {
         throw new IllegalArgumentException("Could not get Initialization vector for alias : " + alias);
     }
 
+    /**
+     * Same as {@link #getIvSpec(String)}, for the IV stored along with a given version of the alias' key.
+     *
+     * @param alias   - The search/load key for IV
+     * @param version - The version of the key the IV belongs to
+     * @return An loaded and initialized IV
+     * @throws IllegalArgumentException if IV for given alias and version cannot be loaded
+     */
+    default IvParameterSpec getIvSpec(@NonNull String alias, int version) throws IllegalArgumentException {
+        if (version == 0) {
+            return getIvSpec(alias);
+        }
+        throw new IllegalArgumentException("Could not get Initialization vector for alias : " + alias
+                + ", version : " + version);
+    }
+
 }
@@ -1,6 +1,6 @@
 --insert into book values(1, 'The Tartar Steppe');
-insert into author(id, first_name, last_name, DOB) values(1, 'Abhishek', 'Anand', '2020-10-01');
-insert into book(id, name, ISBN, author_id) values(1, 'Poem Strip', 'B1234A', 1);
-insert into book(id, name, ISBN, author_id) values(2, 'Poem Strip Vol 2', 'B122334A', 1);
+insert into author(id, uuid, first_name, last_name, DOB) values(1, random_uuid(), 'Abhishek', 'Anand', '2020-10-01');
+insert into book(id, uuid, name, ISBN, author_id) values(1, random_uuid(), 'Poem Strip', 'B1234A', 1);
+insert into book(id, uuid, name, ISBN, author_id) values(2, random_uuid(), 'Poem Strip Vol 2', 'B122334A', 1);
 --insert into book values(3, 'Restless Nights: Selected Stories of Dino Buzzati');
 --insert into book values(4, 'Restless Nights: Selected Stories of Dino Buzzatiiiii');
@@ -0,0 +1,52 @@
+package com.abhishek.demo.db;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements Hibernate prepares while running a piece of code, through its {@link Statistics}, so
+ * that tests can pin the number of queries of a repository call and fail on N+1 regressions.
+ * <p>
+ * Relies on {@code hibernate.generate_statistics}, which application.properties switches on. Statistics are global
+ * to the session factory, so the counted code must not run concurrently with other DB work.
+ */
+public final class StatementCounter {
+
+    private final Statistics statistics;
+
+    private StatementCounter(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public static StatementCounter of(EntityManagerFactory entityManagerFactory) {
+        return new StatementCounter(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+    }
+
+    /**
+     * @return Number of statements prepared while running the call.
+     */
+    public long count(Runnable call) {
+        long before = statistics.getPrepareStatementCount();
+        call.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    /**
+     * Runs the call and asserts it prepared exactly the expected number of statements.
+     *
+     * @return The result of the call.
+     */
+    public <T> T assertStatements(long expected, Supplier<T> call) {
+        long before = statistics.getPrepareStatementCount();
+        T result = call.get();
+        assertThat(statistics.getPrepareStatementCount() - before)
+                .as("SQL statements prepared")
+                .isEqualTo(expected);
+        return result;
+    }
+}
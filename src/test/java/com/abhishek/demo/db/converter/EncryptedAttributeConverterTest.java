@@ -0,0 +1,369 @@
+package com.abhishek.demo.db.converter;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import com.abhishek.demo.util.KeyStoreSecretLoader;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UnknownFormatConversionException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class EncryptedAttributeConverterTest {
+
+    private static final int THREADS = 8;
+    private static final int CONVERSIONS_PER_THREAD = 2_000;
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final char[] KEY_STORE_PASSWORD = "changeit".toCharArray();
+
+    private static SecretKey generateKey(String algorithm, int size) throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance(algorithm);
+        generator.init(size);
+        return generator.generateKey();
+    }
+
+    private static void writeKeyStore(Path path, Map<String, SecretKey> entries) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        for (Map.Entry<String, SecretKey> entry : entries.entrySet()) {
+            keyStore.setEntry(entry.getKey(), new KeyStore.SecretKeyEntry(entry.getValue()),
+                    new KeyStore.PasswordProtection(KEY_STORE_PASSWORD));
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, KEY_STORE_PASSWORD);
+        }
+    }
+
+    /**
+     * A converter that always encrypts with the given format, instead of {@link CipherFormat#getDefault()}.
+     */
+    private static StringEncryptedAttributeConverter converterFor(CipherFormat format) {
+        return new StringEncryptedAttributeConverter() {
+            @Override
+            protected CipherFormat getEncryptionFormat(String s) {
+                return format;
+            }
+        };
+    }
+
+    @ParameterizedTest
+    @EnumSource(CipherFormat.class)
+    void whenConvertedBackAndForth_thenOriginalValueIsReturned(CipherFormat format) {
+        StringEncryptedAttributeConverter converter = converterFor(format);
+
+        String dbValue = converter.convertToDatabaseColumn("0123456789");
+
+        assertThat(dbValue).startsWith(format.getDbPrefix() + EncryptedAttributeConverter.ENTITY_SEPARATOR);
+        assertThat(converter.convertToEntityAttribute(dbValue)).isEqualTo("0123456789");
+    }
+
+    @ParameterizedTest
+    @EnumSource(CipherFormat.class)
+    void whenValuesOfEveryLengthAreConverted_thenBase64PaddingIsDecodedCorrectly(CipherFormat format) {
+        StringEncryptedAttributeConverter converter = converterFor(format);
+        StringBuilder plainText = new StringBuilder();
+        for (int length = 0; length < 40; length++) {
+            String dbValue = converter.convertToDatabaseColumn(plainText.toString());
+            assertThat(converter.convertToEntityAttribute(dbValue)).isEqualTo(plainText.toString());
+            plainText.append((char) ('a' + length % 26));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(CipherFormat.class)
+    void whenConvertedToBinaryColumn_thenOriginalValueIsReturned(CipherFormat format) {
+        StringEncryptedAttributeConverter converter = converterFor(format);
+
+        byte[] dbValue = converter.convertToBinaryDatabaseColumn("0123456789");
+
+        assertThat(new String(dbValue, 0, format.getDbPrefix().length() + 1, StandardCharsets.US_ASCII))
+                .isEqualTo(format.getDbPrefix() + EncryptedAttributeConverter.ENTITY_SEPARATOR);
+        assertThat(converter.convertBinaryToEntityAttribute(dbValue)).isEqualTo("0123456789");
+    }
+
+    @Test
+    void whenEncryptedWithGcm_thenEveryValueHasItsOwnNonceAndTamperingIsDetected() {
+        StringEncryptedAttributeConverter converter = converterFor(CipherFormat.AES_GCM_V2);
+
+        String dbValue = converter.convertToDatabaseColumn("0123456789");
+        assertThat(converter.convertToDatabaseColumn("0123456789")).isNotEqualTo(dbValue);
+
+        byte[] binaryValue = converter.convertToBinaryDatabaseColumn("0123456789");
+        binaryValue[binaryValue.length - 1] ^= 1;
+        assertThatThrownBy(() -> converter.convertBinaryToEntityAttribute(binaryValue))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenBase64PaddingIsFollowedByOtherData_thenConversionFails() {
+        StringEncryptedAttributeConverter converter = converterFor(CipherFormat.BASE_64);
+        String dbValue = converter.convertToDatabaseColumn("0123456789");
+        assertThat(dbValue).endsWith("==");
+
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(dbValue + "junk"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(dbValue.substring(0, dbValue.length() - 1) + "A="))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(dbValue + "="))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConversionBuffer.decodeBase64("abc=junk", 0, new byte[6]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(ConversionBuffer.decodeBase64("abc=", 0, new byte[3])).isEqualTo(2);
+    }
+
+    @Test
+    void whenDecryptionFails_thenTheConversionBufferIsWiped() {
+        StringEncryptedAttributeConverter converter = converterFor(CipherFormat.AES_GCM_V2);
+        String dbValue = converter.convertToDatabaseColumn("0123456789");
+        int payloadStart = dbValue.indexOf(EncryptedAttributeConverter.ENTITY_SEPARATOR) + 1;
+        byte[] payload = Base64.getDecoder().decode(dbValue.substring(payloadStart));
+        payload[payload.length - 1] ^= 1;
+        String tampered = dbValue.substring(0, payloadStart) + Base64.getEncoder().encodeToString(payload);
+
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(tampered))
+                .isInstanceOf(IllegalArgumentException.class);
+        byte[] buffer = ConversionBuffer.acquire(0);
+        assertThat(Arrays.copyOf(buffer, payload.length)).containsOnly(0);
+
+        byte[] binaryValue = converter.convertToBinaryDatabaseColumn("0123456789");
+        binaryValue[binaryValue.length - 1] ^= 1;
+        assertThatThrownBy(() -> converter.convertBinaryToEntityAttribute(binaryValue))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(Arrays.copyOf(ConversionBuffer.acquire(0), binaryValue.length)).containsOnly(0);
+    }
+
+    @Test
+    void whenKeysAreRotated_thenValuesWrittenBeforeRemainReadableAndSearchable(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("keys.p12");
+        Map<String, SecretKey> entries = new LinkedHashMap<>();
+        entries.put("AES_V1", generateKey("AES", 256));
+        entries.put("AES_V1.iv", generateKey("AES", 128));
+        entries.put("AES_GCM_V2", generateKey("AES", 256));
+        entries.put(BlindIndexer.KEY_ALIAS, generateKey(BlindIndexer.ALGORITHM, 256));
+        writeKeyStore(path, entries);
+        CountDownLatch rotated = new CountDownLatch(1);
+        KeyStoreSecretLoader loader = new KeyStoreSecretLoader(path, KEY_STORE_PASSWORD, "PKCS12",
+                Duration.ofMillis(50), () -> {
+            EncryptedAttributeConverter.keysRotated();
+            rotated.countDown();
+        });
+        try {
+            EncryptedAttributeConverter.setSecretLoader(loader);
+            StringEncryptedAttributeConverter cbc = converterFor(CipherFormat.AES_V1);
+            StringEncryptedAttributeConverter gcm = converterFor(CipherFormat.AES_GCM_V2);
+            String cbcBefore = cbc.convertToDatabaseColumn("0123456789");
+            String gcmBefore = gcm.convertToDatabaseColumn("0123456789");
+            byte[] gcmBinaryBefore = gcm.convertToBinaryDatabaseColumn("0123456789");
+            String indexBefore = BlindIndexer.indexOf("0123456789");
+            assertThat(cbcBefore).startsWith("AES1:");
+
+            entries.put("AES_V1.v2", generateKey("AES", 256));
+            entries.put("AES_V1.v2.iv", generateKey("AES", 128));
+            entries.put("AES_GCM_V2.v2", generateKey("AES", 256));
+            entries.put(BlindIndexer.KEY_ALIAS + ".v2", generateKey(BlindIndexer.ALGORITHM, 256));
+            writeKeyStore(path, entries);
+            // file times may be as coarse as a second
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+            assertThat(rotated.await(10, TimeUnit.SECONDS)).isTrue();
+
+            String cbcAfter = cbc.convertToDatabaseColumn("0123456789");
+            assertThat(cbcAfter).startsWith("AES1.2:").isNotEqualTo(cbcBefore);
+            assertThat(gcm.convertToDatabaseColumn("0123456789")).startsWith("AES2.2:");
+            assertThat(cbc.convertToEntityAttribute(cbcBefore)).isEqualTo("0123456789");
+            assertThat(cbc.convertToEntityAttribute(cbcAfter)).isEqualTo("0123456789");
+            assertThat(gcm.convertToEntityAttribute(gcmBefore)).isEqualTo("0123456789");
+            assertThat(gcm.convertBinaryToEntityAttribute(gcmBinaryBefore)).isEqualTo("0123456789");
+
+            String indexAfter = BlindIndexer.indexOf("0123456789");
+            assertThat(indexAfter).isNotEqualTo(indexBefore);
+            assertThat(BlindIndexer.indexesOf("0123456789")).containsExactly(indexAfter, indexBefore);
+
+            // the re-encryption job migrates values to the latest key version
+            assertThat(CipherFormat.AES_V1.getCurrentDbPrefix()).isEqualTo("AES1.2");
+            assertThat(EncryptedAttributeConverter.reEncrypt(cbcBefore, CipherFormat.AES_V1)).isEqualTo(cbcAfter);
+            assertThat(EncryptedAttributeConverter.reEncrypt(cbcAfter, CipherFormat.AES_V1)).isSameAs(cbcAfter);
+        } finally {
+            EncryptedAttributeConverter.setSecretLoader(EncryptedAttributeConverter.defaultSecretLoader);
+            loader.close();
+        }
+    }
+
+    @Test
+    void whenKeyVersionIsMalformed_thenConversionFails() {
+        StringEncryptedAttributeConverter converter = new StringEncryptedAttributeConverter();
+
+        assertThatThrownBy(() -> converter.convertToEntityAttribute("AES1.x:MDEyMw=="))
+                .isInstanceOf(UnknownFormatConversionException.class);
+        assertThatThrownBy(() -> converter.convertBinaryToEntityAttribute("AES1.99999999999:0123".getBytes(StandardCharsets.US_ASCII)))
+                .isInstanceOf(UnknownFormatConversionException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CipherFormat.class)
+    void whenBatchIsConvertedInParallel_thenOutputKeepsInputOrder(CipherFormat format) {
+        StringEncryptedAttributeConverter converter = converterFor(format);
+        List<String> plainTexts = new ArrayList<>();
+        for (int i = 0; i < 4 * ParallelConversion.PARALLEL_THRESHOLD; i++) {
+            plainTexts.add(i % 100 == 0 ? null : "account-" + i);
+        }
+
+        List<String> dbValues = converter.convertAllToDatabaseColumn(plainTexts);
+
+        assertThat(dbValues).hasSameSizeAs(plainTexts);
+        assertThat(converter.convertToEntityAttribute(dbValues.get(1))).isEqualTo("account-1");
+        assertThat(converter.convertAllToEntityAttribute(dbValues)).containsExactlyElementsOf(plainTexts);
+        assertThat(converter.convertAllToEntityAttribute(EncryptedAttributeConverter.reEncryptAll(dbValues, CipherFormat.AES_V1)))
+                .containsExactlyElementsOf(plainTexts);
+    }
+
+    @Test
+    void whenConverted_thenMetersArePublishedToGlobalRegistry() {
+        StringEncryptedAttributeConverter converter = converterFor(CipherFormat.AES_GCM_V2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            String dbValue = converter.convertToDatabaseColumn("0123456789");
+            converter.convertToEntityAttribute(dbValue);
+            byte[] tampered = converter.convertToBinaryDatabaseColumn("0123456789");
+            tampered[tampered.length - 1] ^= 1;
+            assertThatThrownBy(() -> converter.convertBinaryToEntityAttribute(tampered))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(registry.get("db.encryption.conversions").tags("format", "AES_GCM_V2", "direction", "encrypt")
+                    .timer().count()).isEqualTo(2);
+            assertThat(registry.get("db.encryption.bytes").tags("format", "AES_GCM_V2", "direction", "encrypt")
+                    .counter().count()).isEqualTo(20);
+            assertThat(registry.get("db.encryption.conversions").tags("format", "AES_GCM_V2", "direction", "decrypt")
+                    .timer().count()).isEqualTo(1);
+            assertThat(registry.get("db.encryption.failures").tags("direction", "decrypt", "exception", "AEADBadTagException")
+                    .counter().count()).isEqualTo(1);
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    void whenDbPrefixIsUnknown_thenConversionFails() {
+        StringEncryptedAttributeConverter converter = new StringEncryptedAttributeConverter();
+
+        assertThatThrownBy(() -> converter.convertToEntityAttribute("UNKNOWN:MDEyMw=="))
+                .isInstanceOf(UnknownFormatConversionException.class);
+    }
+
+    @Test
+    void whenDecryptedValueCacheIsEnabled_thenRepeatedReadsAreServedFromCache() {
+        StringEncryptedAttributeConverter converter = converterFor(CipherFormat.AES_V1);
+        DecryptedValueCache cache = EncryptedAttributeConverter.getDecryptedValueCache();
+        cache.configure(SEGMENT_COUNT, Duration.ofMinutes(1), DecryptedValueCache.EvictionPolicy.LRU);
+        try {
+            String dbValue = converter.convertToDatabaseColumn("0123456789");
+            long hitsBefore = cache.getHitCount();
+            long missesBefore = cache.getMissCount();
+
+            assertThat(converter.convertToEntityAttribute(dbValue)).isEqualTo("0123456789");
+            assertThat(converter.convertToEntityAttribute(dbValue)).isEqualTo("0123456789");
+            assertThat(cache.getMissCount() - missesBefore).isEqualTo(1);
+            assertThat(cache.getHitCount() - hitsBefore).isEqualTo(1);
+
+            EncryptedAttributeConverter.keysRotated();
+            assertThat(converter.convertToEntityAttribute(dbValue)).isEqualTo("0123456789");
+            assertThat(cache.getMissCount() - missesBefore).isEqualTo(2);
+
+            long evictionsBefore = cache.getEvictionCount();
+            for (int i = 0; i < 10 * SEGMENT_COUNT; i++) {
+                converter.convertToEntityAttribute(converter.convertToDatabaseColumn("value-" + i));
+            }
+            assertThat(cache.getEvictionCount() - evictionsBefore).isPositive();
+        } finally {
+            cache.configure(0, Duration.ZERO, DecryptedValueCache.EvictionPolicy.LRU);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, SEGMENT_COUNT + 3})
+    void whenDecryptedValueCacheIsFull_thenItNeverHoldsMoreThanItsMaxSize(int maxSize) {
+        StringEncryptedAttributeConverter converter = converterFor(CipherFormat.AES_V1);
+        DecryptedValueCache cache = EncryptedAttributeConverter.getDecryptedValueCache();
+        cache.configure(maxSize, Duration.ofMinutes(1), DecryptedValueCache.EvictionPolicy.FIFO);
+        try {
+            for (int i = 0; i < 10 * SEGMENT_COUNT; i++) {
+                converter.convertToEntityAttribute(converter.convertToDatabaseColumn("value-" + i));
+                assertThat(cache.size()).isLessThanOrEqualTo(maxSize);
+            }
+        } finally {
+            cache.configure(0, Duration.ZERO, DecryptedValueCache.EvictionPolicy.LRU);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(CipherFormat.class)
+    void whenConvertedConcurrently_thenEveryThreadGetsItsOwnValueBack(CipherFormat format) throws Exception {
+        StringEncryptedAttributeConverter converter = converterFor(format);
+        CipherPool pool = EncryptedAttributeConverter.getCipherPool();
+        long hitsBefore = pool.getHitCount();
+        long missesBefore = pool.getMissCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                results.add(executor.submit((Callable<Integer>) () -> {
+                    start.await();
+                    int mismatches = 0;
+                    for (int i = 0; i < CONVERSIONS_PER_THREAD; i++) {
+                        String plainText = "account-" + thread + "-" + i;
+                        String dbValue = converter.convertToDatabaseColumn(plainText);
+                        if (!plainText.equals(converter.convertToEntityAttribute(dbValue))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertThat(result.get(1, TimeUnit.MINUTES)).isZero();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long hits = pool.getHitCount() - hitsBefore;
+        long misses = pool.getMissCount() - missesBefore;
+        log.info("Cipher pool for {} : {} hits, {} misses", format, hits, misses);
+        assertThat(misses).isLessThanOrEqualTo(2L * THREADS);
+        assertThat(hits + misses).isEqualTo(2L * THREADS * CONVERSIONS_PER_THREAD);
+    }
+}
@@ -1,28 +1,50 @@
 package com.abhishek.demo.db.repository;
 
+import com.abhishek.demo.db.StatementCounter;
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter;
+import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.model.Book;
 import com.abhishek.demo.db.projections.AuthorClassProjectionView;
+import com.abhishek.demo.db.projections.AuthorDto;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Condition;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 
 @Slf4j
-@SpringBootTest
+@SpringBootTest(properties = "db.second-level-cache.cache-encrypted-entities=true")
 @AutoConfigureTestDatabase
 class AuthorRepositoryTest {
 
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void getAllAuthorsByFirstName_thenTestDynamicProjectionMapping() throws JsonProcessingException {
         List<AuthorClassProjectionView> authors = authorRepository.findAllByFirstName("Abhishek", AuthorClassProjectionView.class);
@@ -45,6 +67,63 @@ class AuthorRepositoryTest {
         }
 
         Condition<AuthorClassProjectionView> havingAccountNumberAs0123456789 = new Condition<AuthorClassProjectionView>(a -> a.getAccountNumber().contains("0123456789"), "having account number as 0123456789");
-        assertThat(authors).are(havingAccountNumberAs0123456789);
+        assertThat(authors).isNotEmpty().are(havingAccountNumberAs0123456789);
+    }
+
+    @Test
+    void findAuthorsByAccountNumber_givesDecryptedDtos() {
+        List<AuthorDto> authors = authorRepository.findAuthorsByAccountNumber("0123456789");
+
+        assertThat(authors).isNotEmpty()
+                .allSatisfy(author -> assertThat(author.getAccountNumber()).isEqualTo("0123456789"));
+        assertThat(authorRepository.findAuthorsByFirstName(authors.get(0).getFirstName())).contains(authors.get(0));
+    }
+
+    @Test
+    void whenAuthorIsReadAgain_thenItAndItsBooksAreServedFromSecondLevelCache() {
+        StatementCounter counter = StatementCounter.of(entityManagerFactory);
+        Long id = saveAuthorWithBooks();
+        try {
+            Supplier<List<String>> readBookNames = () -> transactionTemplate.execute(status -> {
+                Author author = authorRepository.findById(id).orElseThrow(IllegalStateException::new);
+                return author.getBooks().stream().map(Book::getName).sorted().collect(Collectors.toList());
+            });
+            List<String> bookNames = readBookNames.get();
+            assertThat(bookNames).hasSize(2);
+
+            assertThat(counter.assertStatements(0, readBookNames)).isEqualTo(bookNames);
+            assertThat(meterRegistry.get("cache.gets")
+                    .tags("cache", "author", "result", "hit").functionCounter().count()).isPositive();
+
+            // the update replaces the cached entry with the new version, rather than leaving the old one to be served
+            transactionTemplate.execute(status -> {
+                authorRepository.findById(id).orElseThrow(IllegalStateException::new)
+                        .getBooks().forEach(book -> book.setName(book.getName() + " (2nd edition)"));
+                return null;
+            });
+            assertThat(counter.assertStatements(0, readBookNames)).allMatch(name -> name.endsWith(" (2nd edition)"));
+
+            // the decrypted account number is not kept in memory past a key rotation
+            EncryptedAttributeConverter.keysRotated();
+            assertThat(entityManagerFactory.getCache().contains(Author.class, id)).isFalse();
+        } finally {
+            transactionTemplate.execute(status -> {
+                authorRepository.deleteById(id);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * An author of its own, so that its changes do not leak into the data seeded for other tests.
+     */
+    private Long saveAuthorWithBooks() {
+        Set<Book> books = new HashSet<>();
+        Author author = Author.builder().firstName("Cached").lastName("Author").accountNumber("9876543210")
+                .books(books).build();
+        for (int i = 0; i < 2; i++) {
+            books.add(Book.builder().name("Cached book " + i).ISBN(UUID.randomUUID().toString()).author(author).build());
+        }
+        return transactionTemplate.execute(status -> authorRepository.save(author).getId());
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,37 @@
 package com.abhishek.demo.db.repository;
 
+import com.abhishek.demo.db.StatementCounter;
+import com.abhishek.demo.db.model.Author;
 import com.abhishek.demo.db.projections.AuthorClassProjectionView;
 import com.abhishek.demo.db.projections.AuthorView;
+import com.abhishek.demo.db.projections.BookDto;
 import com.abhishek.demo.db.projections.BookView;
 import com.abhishek.demo.db.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.proxy.HibernateProxy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityNotFoundException;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,6 +46,18 @@ class BookRepositoryIntegrationTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     private void beforeEach(){
 //        bookRepository.findAll().forEach(b->log.info("Before : "+ b));
@@ -75,6 +103,29 @@ class BookRepositoryIntegrationTest {
         assertThat(book.hashCode()).isEqualTo(hashCode);
     }
 
+    @Test
+    public void whenNewEntityIsPersisted_thenItsHashCodeAndEqualityStayTheSame() {
+        Book book = Book.builder().name("Hashed").build();
+        Book twin = Book.builder().name("Hashed").build();
+        Set<Book> books = new HashSet<>(Arrays.asList(book, twin));
+        int hashCode = book.hashCode();
+        assertThat(book).isNotEqualTo(twin);
+        assertThat(books).hasSize(2);
+
+        Book saved = bookRepository.save(book);
+
+        assertThat(saved.hashCode()).isEqualTo(hashCode);
+        assertThat(books).contains(saved);
+        transactionTemplate.execute(status -> {
+            Book proxy = bookRepository.getOne(saved.getId());
+            assertThat(proxy).isInstanceOf(HibernateProxy.class);
+            assertThat(proxy).isEqualTo(saved);
+            assertThat(saved).isEqualTo(proxy);
+            assertThat(proxy.hashCode()).isEqualTo(hashCode);
+            return null;
+        });
+    }
+
     @Test
     public void whenModifyOldEntity_thenVersionShouldIncrement() {
         Book book = bookRepository.findById(1L).orElseThrow(EntityNotFoundException::new);
@@ -105,13 +156,101 @@ class BookRepositoryIntegrationTest {
 //        ).contains("Abhishek");
     }
 
+    @Test
+    @Transactional
+    public void whenPagedByKeyset_thenEveryBookIsReadOnceInIdOrder() {
+        for (int i = 0; i < 7; i++) {
+            bookRepository.save(Book.builder().name("Keyset" + i).build());
+        }
+        List<Long> allIds = bookRepository.findAll().stream().map(Book::getId).sorted().collect(Collectors.toList());
+
+        List<Long> pagedIds = new ArrayList<>();
+        long lastSeenId = 0;
+        List<BookDto> page;
+        do {
+            page = bookRepository.findByIdGreaterThanOrderByIdAsc(lastSeenId, PageRequest.of(0, 3));
+            assertThat(page.size()).isLessThanOrEqualTo(3);
+            page.forEach(book -> pagedIds.add(book.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 3);
+
+        assertThat(pagedIds).isEqualTo(allIds);
+    }
+
+    @Test
+    public void whenBooksOfManyAuthorsAreRendered_thenBooksAndAuthorsAreReadInOneStatement() {
+        for (int i = 0; i < 3; i++) {
+            bookRepository.save(Book.builder()
+                    .name("Joined" + i)
+                    .author(Author.builder().firstName("Joined").lastName("Author" + i).build())
+                    .build());
+        }
+        StatementCounter statements = StatementCounter.of(entityManagerFactory);
+
+        String allBooks = statements.assertStatements(1, () -> transactionTemplate.execute(status ->
+                render(bookRepository.findAllByIdGreaterThan(0L))));
+        String authorBooks = statements.assertStatements(1, () -> transactionTemplate.execute(status ->
+                render(bookRepository.findByAuthor_FirstName("Joined"))));
+
+        List<String> authorNames = statements.assertStatements(1, () -> transactionTemplate.execute(status ->
+                bookRepository.findAll().stream()
+                        .filter(book -> book.getAuthor() != null)
+                        .map(book -> book.getAuthor().getLastName())
+                        .collect(Collectors.toList())));
+        assertThat(allBooks).contains("Author0", "Author1", "Author2");
+        assertThat(authorBooks).contains("Author0", "Author1", "Author2");
+        assertThat(authorNames).contains("Author0", "Author1", "Author2");
+    }
+
+    @Test
+    public void whenBooksAreReadAsDtos_thenTheyRenderAsTheirInterfaceProjections() throws JsonProcessingException {
+        bookRepository.save(Book.builder()
+                .name("Rendered")
+                .author(Author.builder().firstName("Rendered").lastName("Author").accountNumber("ACC42").build())
+                .build());
+
+        List<BookDto> dtos = bookRepository.findAllByIdGreaterThan(0L);
+        String views = transactionTemplate.execute(status ->
+                render(bookRepository.findByIdGreaterThan(0L, BookView.class)));
+
+        assertThat(dtos).extracting(BookDto::getName).contains("Rendered");
+        assertThat(dtos).filteredOn(book -> "Rendered".equals(book.getName()))
+                .extracting(book -> book.getAuthor().getAccountNumber()).containsExactly("ACC42");
+        // same properties, in another order
+        assertThat(objectMapper.readTree(render(dtos))).isEqualTo(objectMapper.readTree(views));
+    }
+
+    private String render(List<? extends BookView> books) {
+        try {
+            return objectMapper.writeValueAsString(books);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Test
     public void whenUsingClassBasedProjections_thenDtoWithRequiredPropertiesIsReturned() {
-        List<BookView> books = bookRepository.findByAuthor_FirstName("Abhishek");
+        List<BookDto> books = bookRepository.findByAuthor_FirstName("Abhishek");
 
         books.forEach(System.out::println);
 
         assertThat(books).allSatisfy(book -> book.getAuthor().getFirstName().contains("Abhishek"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void whenRepositoryMethodsAreCalled_thenTheirLatencyAndHibernateStatisticsArePublished() {
+        bookRepository.findAll();
+        bookRepository.findByName("No such book");
+
+        Timer findAll = meterRegistry.get("db.repository.invocations")
+                .tags("repository", "BookRepository", "method", "findAll", "outcome", "SUCCESS").timer();
+        assertThat(findAll.count()).isPositive();
+        assertThat(findAll.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+        assertThat(meterRegistry.get("db.repository.invocations")
+                .tags("repository", "BookRepository", "method", "findByName").timer().count()).isPositive();
+        assertThat(meterRegistry.get("hibernate.statements").tags("status", "prepared").functionCounter().count())
+                .isPositive();
+    }
+}
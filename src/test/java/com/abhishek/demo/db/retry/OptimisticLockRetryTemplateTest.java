@@ -0,0 +1,92 @@
+package com.abhishek.demo.db.retry;
+
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.repository.BookRepository;
+import com.abhishek.demo.service.BookService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OptimisticLockRetryTemplateTest {
+
+    @Autowired
+    private OptimisticLockRetryTemplate retryTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void whenChangeConflicts_thenItIsAppliedAgainOnTheLatestState() {
+        long id = bookRepository.save(Book.builder().name("Contended").ISBN("RETRY-1").build()).getId();
+        double conflicts = conflicts();
+        AtomicInteger attempts = new AtomicInteger();
+
+        Book updated = bookService.updateBook(id, book -> {
+            if (attempts.incrementAndGet() == 1) {
+                renameConcurrently(id, "Contended, concurrently");
+            }
+            book.setName(book.getName() + ", retried");
+        }).orElseThrow(IllegalStateException::new);
+
+        assertThat(attempts).hasValue(2);
+        assertThat(updated.getName()).isEqualTo("Contended, concurrently, retried");
+        assertThat(bookRepository.findById(id).map(Book::getName)).hasValue("Contended, concurrently, retried");
+        assertThat(conflicts()).isEqualTo(conflicts + 1);
+    }
+
+    @Test
+    public void whenEveryAttemptConflicts_thenTheConflictIsThrownAfterTheLastOne() {
+        long id = bookRepository.save(Book.builder().name("Hot").ISBN("RETRY-2").build()).getId();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> bookService.updateBook(id, book -> {
+            renameConcurrently(id, "Hot " + attempts.incrementAndGet());
+            book.setName("Never");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(attempts).hasValue(5);
+        assertThat(meterRegistry.get("db.optimistic-lock.exhausted").tag("entity", "Book").counter().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void whenCalledWithinATransaction_thenItIsRefused() {
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> retryTemplate.execute(Book.class, s -> null)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Commits a change of the book from another thread, while the transaction of the calling thread has it read.
+     */
+    private void renameConcurrently(long id, String name) {
+        CompletableFuture.runAsync(() -> transactionTemplate.execute(status -> {
+            bookRepository.findById(id).ifPresent(book -> book.setName(name));
+            return null;
+        })).join();
+    }
+
+    private double conflicts() {
+        Counter counter = meterRegistry.find("db.optimistic-lock.conflicts").tag("entity", "Book").counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,80 @@
+package com.abhishek.demo.db.routing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against local H2 databases of its own: a primary, a replica, and a replica that does not exist.
+ */
+@SpringBootTest(properties = {
+        "db.routing.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "db.routing.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "db.routing.replicas[1].url=jdbc:h2:mem:routing-missing;IFEXISTS=TRUE",
+        "db.routing.health-check-interval=1h"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        routingDataSource = dataSource.unwrap(ReplicaRoutingDataSource.class);
+    }
+
+    @Test
+    public void whenTransactionIsReadOnly_thenItRunsOnAHealthyReplicaOrElseOnPrimary() {
+        assertThat(routingDataSource.getHealthyReplicas()).containsExactly("replica-0", "replica-1");
+
+        // one of them is sent to the missing replica, and falls back to the primary
+        Set<String> firstReads = new HashSet<>();
+        firstReads.add(databaseOf(true));
+        firstReads.add(databaseOf(true));
+        assertThat(firstReads).containsExactlyInAnyOrder("ROUTING-REPLICA", "ROUTING-PRIMARY");
+        assertThat(routingDataSource.getHealthyReplicas()).containsExactly("replica-0");
+
+        assertThat(databaseOf(true)).isEqualTo("ROUTING-REPLICA");
+        assertThat(databaseOf(true)).isEqualTo("ROUTING-REPLICA");
+        assertThat(databaseOf(false)).isEqualTo("ROUTING-PRIMARY");
+
+        routingDataSource.checkHealth();
+        assertThat(routingDataSource.getHealthyReplicas()).containsExactly("replica-0");
+
+        assertThat(meterRegistry.get("hikaricp.connections.acquire").tag("pool", "replica-0").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get("hikaricp.connections.pending").tag("pool", "primary").gauge()).isNotNull();
+    }
+
+    private String databaseOf(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                (String) entityManager.createNativeQuery("select database()").getSingleResult());
+    }
+}
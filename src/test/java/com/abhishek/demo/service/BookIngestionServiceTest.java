@@ -0,0 +1,72 @@
+package com.abhishek.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class BookIngestionServiceTest {
+
+    private static final int ROWS = 1_200;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    /**
+     * Built on the application context shared with the other tests, rather than through a test context of its own,
+     * as all contexts would share the same in-memory DB and its sequences.
+     */
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    public void whenCsvIsUploaded_thenBooksAndAuthorsAreWrittenInBatches() throws Exception {
+        StringBuilder csv = new StringBuilder("isbn,name,authorFirstName,authorLastName,authorAccountNumber\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("CSV-").append(i).append(",\"Bulk, Vol ").append(i).append("\",Bulk,CsvAuthor")
+                    .append(i % 3).append(",ACC").append(i % 3).append('\n');
+        }
+
+        mockMvc.perform(post("/books/bulk").contentType("text/csv").content(csv.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books").value(ROWS))
+                .andExpect(jsonPath("$.authors").value(3));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from book b join author a on b.author_id = a.id"
+                + " where a.last_name like 'CsvAuthor%'", Long.class)).isEqualTo(ROWS);
+        assertThat(jdbcTemplate.queryForObject("select name from book where isbn = 'CSV-7'", String.class))
+                .isEqualTo("Bulk, Vol 7");
+    }
+
+    @Test
+    public void whenNdjsonIsUploaded_thenEveryLineIsWritten() throws Exception {
+        String ndjson = "{\"name\":\"Json 1\",\"isbn\":\"JSON-1\",\"authorFirstName\":\"Bulk\",\"authorLastName\":\"JsonAuthor\"}\n"
+                + "{\"name\":\"Json 2\",\"isbn\":\"JSON-2\",\"authorFirstName\":\"Bulk\",\"authorLastName\":\"JsonAuthor\"}\n";
+
+        mockMvc.perform(post("/books/bulk").contentType("application/x-ndjson").content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books").value(2))
+                .andExpect(jsonPath("$.authors").value(1));
+
+        assertThat(jdbcTemplate.queryForList("select id from book where isbn like 'JSON-%'", Long.class))
+                .hasSize(2)
+                .allSatisfy(id -> assertThat(id).isGreaterThanOrEqualTo(1000L));
+    }
+}
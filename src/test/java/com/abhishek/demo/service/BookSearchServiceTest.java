@@ -0,0 +1,69 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.repository.BookRepository;
+import com.abhishek.demo.http.model.BookSearchHit;
+import com.abhishek.demo.http.model.BookSearchPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BookSearchServiceTest {
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void whenBooksAreSaved_thenTheyAreFoundByWordsOfTheirNamesMostRelevantFirst() {
+        Book exact = bookRepository.save(Book.builder().name("Quokka").ISBN("SEARCH-1").build());
+        Book longer = bookRepository.save(Book.builder().name("Quokka and Wombat").build());
+        bookRepository.save(Book.builder().name("Wombat Days").build());
+
+        BookSearchPage page = bookSearchService.search("quokka", 0, 10);
+
+        assertThat(page.getItems()).extracting(BookSearchHit::getId).containsExactly(exact.getId(), longer.getId());
+        assertThat(page.getItems().get(0).getIsbn()).isEqualTo("SEARCH-1");
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(bookSearchService.search("QUOKKA wombat", 0, 2).getItems()).extracting(BookSearchHit::getId)
+                .containsExactly(longer.getId(), exact.getId());
+        assertThat(bookSearchService.search("quokka", 1, 1).getItems()).extracting(BookSearchHit::getId)
+                .containsExactly(longer.getId());
+
+        longer.setName("Numbat and Wombat");
+        bookRepository.save(longer);
+        assertThat(bookSearchService.search("quokka", 0, 10).getItems()).extracting(BookSearchHit::getId)
+                .containsExactly(exact.getId());
+
+        bookRepository.delete(exact);
+        assertThat(bookSearchService.search("quokka", 0, 10).getItems()).isEmpty();
+    }
+
+    @Test
+    public void whenTransactionRollsBack_thenItsBooksAreNotIndexed() {
+        transactionTemplate.execute(status -> {
+            bookRepository.save(Book.builder().name("Rolled Back Platypus").build());
+            bookRepository.flush();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(bookSearchService.search("platypus", 0, 10).getItems()).isEmpty();
+    }
+
+    @Test
+    public void whenPageIsBeyondResultWindow_thenSearchIsRejected() {
+        assertThatThrownBy(() -> bookSearchService.search("quokka", BookSearchService.MAX_RESULT_WINDOW, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
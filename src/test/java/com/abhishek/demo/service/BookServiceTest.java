@@ -1,16 +1,21 @@
 package com.abhishek.demo.service;
 
+import com.abhishek.demo.db.StatementCounter;
 import com.abhishek.demo.db.model.Author;
 import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.projections.BookView;
 import com.abhishek.demo.db.repository.BookRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -24,6 +29,8 @@ class BookServiceTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     @Test
     public void whenApplicationStarts_thenHibernateCreatesInitialRecords() {
@@ -32,6 +39,47 @@ class BookServiceTest {
         assertThat(books.size()).isEqualTo(3);
     }
 
+    @Test
+    public void whenBooksAreStreamed_thenEveryBookIsReadInIdOrder() {
+        List<Long> streamedIds = new ArrayList<>();
+
+        long count = bookService.streamAllBooks(book -> streamedIds.add(book.getId()));
+
+        assertThat(count).isEqualTo(streamedIds.size());
+        assertThat(streamedIds).isSorted()
+                .containsExactlyInAnyOrderElementsOf(bookService.list().stream().map(Book::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void whenBookIsLookedUpByIsbnAgain_thenOnlyItsAuthorIsReadFromDb() {
+        StatementCounter counter = StatementCounter.of(entityManagerFactory);
+        bookService.getBookByIsbn("B1234A");
+
+        // the book comes from the caches, its author is not cached by default, see SecondLevelCacheConfig
+        BookView book = counter.assertStatements(1, () -> bookService.getBookByIsbn("B1234A"))
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(book.getISBN()).isEqualTo("B1234A");
+        assertThat(book.getAuthor().getFirstName()).isEqualTo("Abhishek");
+        assertThat(bookService.getBookByIsbn("NO-SUCH-ISBN")).isEmpty();
+    }
+
+    @Test
+    public void whenBooksAreLookedUpByIsbn_thenOneStatementIsPreparedPerChunk() {
+        List<String> isbns = new ArrayList<>();
+        isbns.add("B1234A");
+        for (int i = 0; i < BookService.ISBN_CHUNK_SIZE; i++) {
+            isbns.add("NO-SUCH-ISBN-" + i);
+        }
+        isbns.add("B122334A");
+        isbns.add("B1234A");
+
+        List<BookView> books = StatementCounter.of(entityManagerFactory)
+                .assertStatements(2, () -> bookService.getBooksByIsbn(isbns));
+
+        assertThat(books).extracting(BookView::getISBN).containsExactlyInAnyOrder("B1234A", "B122334A");
+    }
+
     @Test
     @Transactional
     public void whenCreateAuthorFromBookBuilder_thenHibernateShouldCreateAuthor() throws ParseException {
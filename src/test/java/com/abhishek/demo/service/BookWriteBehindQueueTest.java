@@ -0,0 +1,128 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.config.WriteBehindConfig;
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BookWriteBehindQueueTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Test
+    public void whenBooksAreCreatedConcurrently_thenTheyAreWrittenInBatches() throws Exception {
+        BookWriteBehindQueue queue = newQueue(100, Duration.ofMillis(200));
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<List<CompletableFuture<Long>>>> submitted = new ArrayList<>();
+        for (int client = 0; client < 8; client++) {
+            int clientId = client;
+            submitted.add(clients.submit(() -> {
+                List<CompletableFuture<Long>> ids = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    ids.add(queue.submit(Book.builder().name("Queued").ISBN("WB-" + clientId + "-" + i).build()));
+                }
+                return ids;
+            }));
+        }
+        HashSet<Long> ids = new HashSet<>();
+        for (Future<List<CompletableFuture<Long>>> client : submitted) {
+            for (CompletableFuture<Long> id : client.get()) {
+                ids.add(id.get(10, TimeUnit.SECONDS));
+            }
+        }
+        clients.shutdown();
+        queue.close();
+
+        assertThat(ids).hasSize(400).doesNotContainNull();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from book where isbn like 'WB-%'", Long.class))
+                .isEqualTo(400);
+        assertThat(queue.getBooksWritten()).isEqualTo(400);
+        assertThat(queue.getBatchesWritten()).isBetween(4L, 40L);
+    }
+
+    @Test
+    public void whenClosed_thenQueuedBooksAreWrittenAndNewOnesRejected() throws Exception {
+        BookWriteBehindQueue queue = newQueue(1000, Duration.ofMinutes(1));
+        List<CompletableFuture<Long>> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(queue.submit(Book.builder().name("Drained").ISBN("DRAIN-" + i).build()));
+        }
+
+        queue.close();
+
+        assertThat(ids).allSatisfy(id -> assertThat(id).isCompleted());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from book where isbn like 'DRAIN-%'", Long.class))
+                .isEqualTo(20);
+        assertThatThrownBy(() -> queue.submit(Book.builder().name("Late").ISBN("DRAIN-late").build()))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void whenClosedWhileBooksAreSubmitted_thenEveryAcceptedBookIsCompleted() throws Exception {
+        BookWriteBehindQueue queue = newQueue(10, Duration.ofMillis(5));
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<List<CompletableFuture<Long>>>> submitted = new ArrayList<>();
+        for (int client = 0; client < 8; client++) {
+            int clientId = client;
+            submitted.add(clients.submit(() -> {
+                List<CompletableFuture<Long>> ids = new ArrayList<>();
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        ids.add(queue.submit(Book.builder().name("Racing").ISBN("RACE-" + clientId + "-" + i).build()));
+                    }
+                } catch (RejectedExecutionException e) {
+                    // closed
+                }
+                return ids;
+            }));
+        }
+        TimeUnit.MILLISECONDS.sleep(50);
+        queue.close();
+
+        for (Future<List<CompletableFuture<Long>>> client : submitted) {
+            assertThat(client.get(10, TimeUnit.SECONDS)).allSatisfy(id -> assertThat(id).isDone());
+        }
+        clients.shutdown();
+    }
+
+    private BookWriteBehindQueue newQueue(int batchSize, Duration maxDelay) {
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setCapacity(1000);
+        config.setBatchSize(batchSize);
+        config.setMaxDelay(maxDelay);
+        config.setOfferTimeout(Duration.ofSeconds(5));
+        config.setShutdownTimeout(Duration.ofSeconds(10));
+        return new BookWriteBehindQueue(bookRepository, transactionTemplate, config, meterRegistry);
+    }
+}
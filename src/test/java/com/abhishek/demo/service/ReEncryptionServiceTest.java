@@ -0,0 +1,125 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter;
+import com.abhishek.demo.db.converter.EncryptedAttributeConverter.CipherFormat;
+import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.model.ReEncryptionCheckpoint;
+import com.abhishek.demo.db.repository.AuthorRepository;
+import com.abhishek.demo.util.SecretLoader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.crypto.KeySelectorException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReEncryptionServiceTest {
+
+    @Autowired
+    private ReEncryptionService reEncryptionService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void whenReEncrypted_thenAllRowsAreInTargetFormatAndStillReadable() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            authorRepository.save(Author.builder()
+                    .firstName("ReEncrypted")
+                    .lastName("Author" + i)
+                    .accountNumber("ACC" + i)
+                    .build());
+        }
+
+        ReEncryptionCheckpoint checkpoint = reEncryptionService.reEncrypt();
+
+        assertThat(checkpoint.getTargetFormat()).isEqualTo(CipherFormat.AES_V1);
+        assertThat(checkpoint.getRowsReEncrypted()).isGreaterThanOrEqualTo(25);
+        assertThat(jdbcTemplate.queryForList("select account_number from author where account_number is not null", String.class))
+                .allSatisfy(value -> assertThat(value).startsWith(CipherFormat.AES_V1.getDbPrefix() + ":"));
+
+        List<Author> authors = authorRepository.findAllByFirstName("ReEncrypted", Author.class);
+        assertThat(authors).hasSize(25);
+        assertThat(authors).allSatisfy(author ->
+                assertThat(author.getAccountNumber()).isEqualTo("ACC" + author.getLastName().substring("Author".length())));
+        assertThat(authorRepository.findAllByAccountNumber("ACC7", Author.class)).hasSize(1);
+    }
+
+    @Test
+    public void whenKeysAreRotatedAfterACompletedRun_thenExistingRowsAreReEncryptedAgain() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            authorRepository.save(Author.builder()
+                    .firstName("Rotated")
+                    .lastName("Author" + i)
+                    .accountNumber("ROT" + i)
+                    .build());
+        }
+        ReEncryptionCheckpoint checkpoint = reEncryptionService.reEncrypt();
+        assertThat(checkpoint.getTargetDbPrefix()).isEqualTo(CipherFormat.AES_V1.getDbPrefix());
+
+        SecretLoader previous = EncryptedAttributeConverter.getSecretLoader();
+        AtomicInteger latestVersion = new AtomicInteger(1);
+        SecureRandom random = new SecureRandom();
+        byte[] rotatedKey = new byte[16];
+        byte[] rotatedIv = new byte[16];
+        random.nextBytes(rotatedKey);
+        random.nextBytes(rotatedIv);
+        EncryptedAttributeConverter.setSecretLoader(new SecretLoader() {
+            @Override
+            public SecretKey getSecretKey(String alias, int keyLength) throws KeySelectorException {
+                return previous.getSecretKey(alias, keyLength);
+            }
+
+            @Override
+            public int getLatestVersion(String alias) throws KeySelectorException {
+                return alias.equals("AES_V1") ? latestVersion.get() : previous.getLatestVersion(alias);
+            }
+
+            @Override
+            public SecretKey getSecretKey(String alias, int version, int keyLength) throws KeySelectorException {
+                return alias.equals("AES_V1") && version == 1 ? new SecretKeySpec(rotatedKey, "AES")
+                        : previous.getSecretKey(alias, version, keyLength);
+            }
+
+            @Override
+            public IvParameterSpec getIvSpec(String alias) {
+                return previous.getIvSpec(alias);
+            }
+
+            @Override
+            public IvParameterSpec getIvSpec(String alias, int version) {
+                return alias.equals("AES_V1") && version == 1 ? new IvParameterSpec(rotatedIv)
+                        : previous.getIvSpec(alias, version);
+            }
+        });
+        try {
+            checkpoint = reEncryptionService.reEncrypt();
+
+            String rotatedPrefix = CipherFormat.AES_V1.getDbPrefix() + ".1";
+            assertThat(checkpoint.getTargetDbPrefix()).isEqualTo(rotatedPrefix);
+            assertThat(checkpoint.getRowsReEncrypted()).isGreaterThanOrEqualTo(10);
+            assertThat(jdbcTemplate.queryForList("select account_number from author where account_number is not null", String.class))
+                    .allSatisfy(value -> assertThat(value).startsWith(rotatedPrefix + ":"));
+            assertThat(authorRepository.findAllByFirstName("Rotated", Author.class)).allSatisfy(author ->
+                    assertThat(author.getAccountNumber()).isEqualTo("ROT" + author.getLastName().substring("Author".length())));
+        } finally {
+            // back to version 0 while the rotated key can still decrypt, so other tests find the rows as they expect
+            latestVersion.set(0);
+            EncryptedAttributeConverter.keysRotated();
+            reEncryptionService.reEncrypt();
+            EncryptedAttributeConverter.setSecretLoader(previous);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.projections.AuthorView;
+import com.abhishek.demo.db.projections.BookView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReactiveBookServiceTest {
+
+    @Autowired
+    private ReactiveBookService reactiveBookService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    public void whenBooksAreReadOverR2dbc_thenTheyMatchTheJpaReads() {
+        List<BookView> reactive = reactiveBookService.getBooksAfter(0, 1000).collectList().block();
+
+        assertThat(reactive).isNotEmpty();
+        assertThat(reactive.stream().map(BookDigest::new).collect(Collectors.toList()))
+                .isEqualTo(bookService.getBooksAfter(0, 1000).stream().map(BookDigest::new).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void whenBooksOfAnAuthorAreReadOverR2dbc_thenOnlyTheirsAreReturnedAfterTheLastSeenId() {
+        List<BookView> books = reactiveBookService.getBooksForAuthorAfter("Abhishek", 1, 10).collectList().block();
+
+        assertThat(books).extracting(BookView::getISBN).containsExactly("B122334A");
+        assertThat(books.get(0).getAuthor().getLastName()).isEqualTo("Anand");
+    }
+
+    /**
+     * Values of a view, comparable across implementations.
+     */
+    private static final class BookDigest {
+        private final String value;
+
+        private BookDigest(BookView book) {
+            AuthorView author = book.getAuthor();
+            value = book.getId() + "|" + book.getName() + "|" + book.getISBN() + "|" + (author == null ? null
+                    : author.getFirstName() + "|" + author.getLastName() + "|" + author.getAccountNumber());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BookDigest && ((BookDigest) o).value.equals(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
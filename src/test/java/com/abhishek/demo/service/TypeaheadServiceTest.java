@@ -0,0 +1,51 @@
+package com.abhishek.demo.service;
+
+import com.abhishek.demo.db.model.Author;
+import com.abhishek.demo.db.model.Book;
+import com.abhishek.demo.db.repository.AuthorRepository;
+import com.abhishek.demo.db.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TypeaheadServiceTest {
+
+    @Autowired
+    private TypeaheadService typeaheadService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    public void whenApplicationStarts_thenNamesAlreadyInDbAreCompleted() {
+        assertThat(typeaheadService.complete("abhi", 10).getAuthors()).contains("Abhishek");
+        assertThat(typeaheadService.complete("POEM s", 10).getBooks()).contains("Poem Strip", "Poem Strip Vol 2");
+    }
+
+    @Test
+    public void whenNamesChange_thenCompletionsFollowAfterCommit() {
+        authorRepository.save(Author.builder().firstName("Typeahead").lastName("Tester").build());
+        Book first = bookRepository.save(Book.builder().name("Typeset Zebra").build());
+        Book second = bookRepository.save(Book.builder().name("Typeset Aardvark").build());
+
+        assertThat(typeaheadService.complete("type", 10).getAuthors()).containsExactly("Typeahead");
+        assertThat(typeaheadService.complete("typeset", 10).getBooks())
+                .containsExactly("Typeset Aardvark", "Typeset Zebra");
+        assertThat(typeaheadService.complete("typeset", 1).getBooks()).containsExactly("Typeset Aardvark");
+
+        second.setName("Typeset Zebra");
+        bookRepository.save(second);
+        assertThat(typeaheadService.complete("typeset", 10).getBooks()).containsExactly("Typeset Zebra");
+
+        bookRepository.delete(bookRepository.findById(first.getId()).get());
+        assertThat(typeaheadService.complete("typeset", 10).getBooks()).containsExactly("Typeset Zebra");
+        bookRepository.delete(bookRepository.findById(second.getId()).get());
+        assertThat(typeaheadService.complete("typeset", 10).getBooks()).isEmpty();
+    }
+}
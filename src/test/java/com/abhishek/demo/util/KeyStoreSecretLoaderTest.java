@@ -0,0 +1,95 @@
+package com.abhishek.demo.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.xml.crypto.KeySelectorException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyStoreSecretLoaderTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    @TempDir
+    Path tempDir;
+
+    private static SecretKey aesKey(int size) throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(size);
+        return generator.generateKey();
+    }
+
+    private static void writeKeyStore(Path path, Map<String, SecretKey> entries) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        for (Map.Entry<String, SecretKey> entry : entries.entrySet()) {
+            keyStore.setEntry(entry.getKey(), new KeyStore.SecretKeyEntry(entry.getValue()),
+                    new KeyStore.PasswordProtection(PASSWORD));
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, PASSWORD);
+        }
+    }
+
+    @Test
+    void whenKeyStoreHasVersionedEntries_thenLatestVersionAndItsIvAreLoaded() throws Exception {
+        Path path = tempDir.resolve("keys.p12");
+        SecretKey v1 = aesKey(256);
+        SecretKey v2 = aesKey(256);
+        SecretKey v2Iv = aesKey(128);
+        Map<String, SecretKey> entries = new LinkedHashMap<>();
+        entries.put("AES_V1", v1);
+        entries.put("AES_V1.v2", v2);
+        entries.put("AES_V1.v2.iv", v2Iv);
+        writeKeyStore(path, entries);
+
+        try (KeyStoreSecretLoader loader = new KeyStoreSecretLoader(path, PASSWORD, "PKCS12", Duration.ofMinutes(1), () -> {
+        })) {
+            assertThat(loader.getSecretKey("AES_V1", 256).getEncoded()).isEqualTo(v2.getEncoded());
+            assertThat(loader.getSecretKey("AES_V1", 0, 256).getEncoded()).isEqualTo(v1.getEncoded());
+            assertThat(loader.getIvSpec("AES_V1").getIV()).isEqualTo(v2Iv.getEncoded());
+            assertThat(loader.getLatestVersion("AES_V1")).isEqualTo(2);
+            assertThat(loader.getIvSpec("AES_V1", 2).getIV()).isEqualTo(v2Iv.getEncoded());
+            assertThatThrownBy(() -> loader.getIvSpec("AES_V1", 0)).isInstanceOf(IllegalArgumentException.class);
+
+            assertThatThrownBy(() -> loader.getSecretKey("AES_V1", 128)).isInstanceOf(KeySelectorException.class);
+            assertThatThrownBy(() -> loader.getSecretKey("AES_GCM_V2", 256)).isInstanceOf(KeySelectorException.class);
+            assertThatThrownBy(() -> loader.getIvSpec("AES_GCM_V2")).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void whenKeyStoreFileChanges_thenKeyRingIsRefreshedInBackground() throws Exception {
+        Path path = tempDir.resolve("keys.p12");
+        Map<String, SecretKey> entries = new LinkedHashMap<>();
+        entries.put("AES_V1", aesKey(256));
+        writeKeyStore(path, entries);
+        CountDownLatch refreshed = new CountDownLatch(1);
+
+        try (KeyStoreSecretLoader loader = new KeyStoreSecretLoader(path, PASSWORD, "PKCS12", Duration.ofMillis(50),
+                refreshed::countDown)) {
+            SecretKey rotated = aesKey(256);
+            entries.put("AES_V1.v2", rotated);
+            writeKeyStore(path, entries);
+            // file times may be as coarse as a second
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+
+            assertThat(refreshed.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(loader.getSecretKey("AES_V1", 256).getEncoded()).isEqualTo(rotated.getEncoded());
+        }
+    }
+}